@@ -0,0 +1,157 @@
+package com.skillmap.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Bounded executors for work that runs after an answer has been stored.
+ * Each task type gets its own pool so a slow embedding provider cannot starve belief updates.
+ */
+@Configuration
+@EnableAsync
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String SIMILARITY_EXECUTOR = "similarityExecutor";
+    public static final String BELIEF_EXECUTOR = "beliefExecutor";
+
+    private final AsyncExecutorMetrics metrics;
+
+    @Bean(name = SIMILARITY_EXECUTOR)
+    public ThreadPoolTaskExecutor similarityExecutor(
+            @Value("${async.similarity.core-size:2}") int coreSize,
+            @Value("${async.similarity.max-size:4}") int maxSize,
+            @Value("${async.similarity.queue-capacity:200}") int queueCapacity,
+            @Value("${async.similarity.rejection-policy:discard}") String rejectionPolicy) {
+        return buildExecutor(SIMILARITY_EXECUTOR, "similarity-", coreSize, maxSize, queueCapacity, rejectionPolicy);
+    }
+
+    @Bean(name = BELIEF_EXECUTOR)
+    public ThreadPoolTaskExecutor beliefExecutor(
+            @Value("${async.beliefs.core-size:2}") int coreSize,
+            @Value("${async.beliefs.max-size:4}") int maxSize,
+            @Value("${async.beliefs.queue-capacity:500}") int queueCapacity,
+            @Value("${async.beliefs.rejection-policy:caller-runs}") String rejectionPolicy) {
+        return buildExecutor(BELIEF_EXECUTOR, "beliefs-", coreSize, maxSize, queueCapacity, rejectionPolicy);
+    }
+
+    /**
+     * Belief updates of one session run one at a time and in answer order; sessions run in parallel.
+     * A discarded task would stall its session's queue, so only caller-runs and abort are accepted.
+     */
+    @Bean
+    public SessionSerialExecutor beliefSessionExecutor(
+            @Qualifier(BELIEF_EXECUTOR) ThreadPoolTaskExecutor beliefExecutor,
+            @Value("${async.beliefs.rejection-policy:caller-runs}") String rejectionPolicy) {
+        if (rejectionPolicy != null && rejectionPolicy.trim().toLowerCase().startsWith("discard")) {
+            throw new IllegalStateException("async.beliefs.rejection-policy must be caller-runs or abort, not "
+                + rejectionPolicy + ": a discarded belief update would stall its session");
+        }
+        return new SessionSerialExecutor(beliefExecutor, failedSession -> metrics.recordFailure(BELIEF_EXECUTOR));
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> {
+            Async async = method.getAnnotation(Async.class);
+            if (async != null && !async.value().isEmpty()) {
+                metrics.recordFailure(async.value());
+            }
+            log.error("Async task {}.{} failed", method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+        };
+    }
+
+    private ThreadPoolTaskExecutor buildExecutor(String name, String threadPrefix, int coreSize, int maxSize,
+                                                 int queueCapacity, String rejectionPolicy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(countingHandler(name, rejectionPolicy));
+        executor.setTaskDecorator(contextPropagatingDecorator(name));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        metrics.register(name, executor);
+        log.info("Executor {} ready (core={}, max={}, queue={}, rejection={})",
+                name, coreSize, maxSize, queueCapacity, rejectionPolicy);
+        return executor;
+    }
+
+    private RejectedExecutionHandler countingHandler(String name, String policy) {
+        RejectedExecutionHandler delegate = switch (policy == null ? "" : policy.trim().toLowerCase()) {
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "discard" -> new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest" -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            default -> {
+                log.warn("Unknown rejection policy '{}' for {}, using caller-runs", policy, name);
+                yield new ThreadPoolExecutor.CallerRunsPolicy();
+            }
+        };
+        AsyncExecutorMetrics.Stats stats = metrics.stats(name);
+        return (task, pool) -> {
+            stats.rejected.increment();
+            log.warn("Executor {} saturated (queue={}), applying {} policy", name, pool.getQueue().size(), policy);
+            delegate.rejectedExecution(task, pool);
+        };
+    }
+
+    /**
+     * Carries MDC and the security context into the worker thread and records queue wait and, for tasks
+     * that succeed, run time. A task fails if it throws or reports a failure it handled itself through
+     * {@link AsyncExecutorMetrics#recordFailure} while running, as {@code @Async} methods do through the
+     * uncaught exception handler.
+     */
+    private TaskDecorator contextPropagatingDecorator(String name) {
+        AsyncExecutorMetrics.Stats stats = metrics.stats(name);
+        return task -> {
+            Map<String, String> mdc = MDC.getCopyOfContextMap();
+            SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+            securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                stats.queueWaitNanos.add(startedAt - submittedAt);
+                Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+                SecurityContext previousSecurity = SecurityContextHolder.getContext();
+                if (mdc != null) MDC.setContextMap(mdc); else MDC.clear();
+                SecurityContextHolder.setContext(securityContext);
+                AsyncExecutorMetrics.Run previousRun = metrics.beginRun(name);
+                boolean threw = true;
+                try {
+                    task.run();
+                    threw = false;
+                } finally {
+                    if (metrics.endRun(previousRun) || threw) {
+                        stats.failed.increment();
+                    } else {
+                        stats.executionNanos.add(System.nanoTime() - startedAt);
+                        stats.completed.increment();
+                    }
+                    if (previousMdc != null) MDC.setContextMap(previousMdc); else MDC.clear();
+                    SecurityContextHolder.setContext(previousSecurity);
+                }
+            };
+        };
+    }
+}
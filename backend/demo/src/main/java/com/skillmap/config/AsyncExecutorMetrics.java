@@ -0,0 +1,103 @@
+package com.skillmap.config;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue depth, throughput and latency counters for the application's task executors.
+ */
+@Component
+public class AsyncExecutorMetrics {
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final ThreadLocal<Run> currentRun = new ThreadLocal<>();
+
+    void register(String name, ThreadPoolTaskExecutor executor) {
+        executors.put(name, executor);
+        stats.computeIfAbsent(name, n -> new Stats());
+    }
+
+    Stats stats(String name) {
+        return stats.computeIfAbsent(name, n -> new Stats());
+    }
+
+    /**
+     * Count a failed task of the named executor. For failures the executor cannot see: exceptions of
+     * {@code @Async} methods and ones a task catches and logs itself. Called from within a task of that
+     * executor, it marks the running task failed, so the task counts as failed instead of completed.
+     */
+    public void recordFailure(String name) {
+        Run run = currentRun.get();
+        if (run != null && run.name.equals(name)) {
+            run.failed = true;
+        } else {
+            stats(name).failed.increment();
+        }
+    }
+
+    /**
+     * Mark the calling thread as running a task of the named executor; returns the run it replaces, to be
+     * restored with {@link #endRun} (non-null when a caller-runs task runs inside another task).
+     */
+    Run beginRun(String name) {
+        Run previous = currentRun.get();
+        currentRun.set(new Run(name));
+        return previous;
+    }
+
+    /**
+     * Whether the current run was marked failed; restores the run {@link #beginRun} replaced.
+     */
+    boolean endRun(Run previous) {
+        Run run = currentRun.get();
+        if (previous != null) currentRun.set(previous); else currentRun.remove();
+        return run != null && run.failed;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        executors.forEach((name, executor) -> {
+            Stats s = stats(name);
+            Map<String, Object> m = new LinkedHashMap<>();
+            ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+            m.put("poolSize", pool.getPoolSize());
+            m.put("activeCount", pool.getActiveCount());
+            m.put("maxPoolSize", pool.getMaximumPoolSize());
+            m.put("queueDepth", pool.getQueue().size());
+            m.put("queueRemainingCapacity", pool.getQueue().remainingCapacity());
+            long completed = s.completed.sum();
+            m.put("completed", completed);
+            m.put("failed", s.failed.sum());
+            m.put("rejected", s.rejected.sum());
+            m.put("avgQueueWaitMs", completed == 0 ? 0.0 : s.queueWaitNanos.sum() / 1e6 / completed);
+            // Averages cover completed tasks only
+            m.put("avgExecutionMs", completed == 0 ? 0.0 : s.executionNanos.sum() / 1e6 / completed);
+            out.put(name, m);
+        });
+        return out;
+    }
+
+    static final class Run {
+        private final String name;
+        private boolean failed;
+
+        private Run(String name) {
+            this.name = name;
+        }
+    }
+
+    static class Stats {
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder queueWaitNanos = new LongAdder();
+        final LongAdder executionNanos = new LongAdder();
+    }
+}
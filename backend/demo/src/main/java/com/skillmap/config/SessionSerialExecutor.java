@@ -0,0 +1,116 @@
+package com.skillmap.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks on a shared pool with at most one task per session at a time, in submission order.
+ * Each session has a mailbox: a chain of futures whose tail is replaced on every submit, so tasks of
+ * one session run one after another while different sessions run in parallel on the pool's threads.
+ * The mailbox is dropped as soon as its last task finishes.
+ *
+ * <p>The pool must either run or reject every task it is given: a rejection policy that silently
+ * discards a task would leave its session's mailbox waiting forever.
+ *
+ * <p>A task is handed to the pool from whichever thread finished the task before it, so the pool's own
+ * context propagation would pass on that thread's context. MDC and the security context are therefore
+ * captured when the task is submitted and restored around it.
+ */
+@Slf4j
+public class SessionSerialExecutor {
+
+    private final Executor delegate;
+    private final Consumer<Long> failureListener;
+    private final ConcurrentHashMap<Long, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureListener told the session id of every task that throws, on the thread that ran it
+     */
+    public SessionSerialExecutor(Executor delegate, Consumer<Long> failureListener) {
+        this.delegate = delegate;
+        this.failureListener = failureListener;
+    }
+
+    /**
+     * Queue a task behind the session's earlier tasks. The task is handed to the pool once the previous one
+     * finishes, on the thread that finished it, or on the caller's thread if the mailbox was idle; with a
+     * caller-runs pool that is saturated, the task then runs on that thread. A failing or rejected task is
+     * logged and does not stop the tasks queued after it.
+     */
+    public CompletableFuture<Void> submit(Long sessionId, Runnable task) {
+        Runnable withContext = withSubmitterContext(task);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        // Atomic swap of the tail; the chaining below happens outside the map's lock
+        CompletableFuture<Void> previous = tails.put(sessionId, done);
+        if (previous == null) {
+            dispatch(sessionId, withContext, done);
+        } else {
+            previous.whenComplete((ignored, error) -> dispatch(sessionId, withContext, done));
+        }
+        return done;
+    }
+
+    /**
+     * Number of sessions with queued or running tasks.
+     */
+    public int activeSessions() {
+        return tails.size();
+    }
+
+    private void dispatch(Long sessionId, Runnable task, CompletableFuture<Void> done) {
+        try {
+            delegate.execute(() -> {
+                try {
+                    runQuietly(sessionId, task);
+                } finally {
+                    finish(sessionId, done);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Task for session {} could not run: {}", sessionId, e.getMessage());
+            finish(sessionId, done);
+        }
+    }
+
+    private void finish(Long sessionId, CompletableFuture<Void> done) {
+        // Drop the mailbox if nothing was queued behind this task
+        tails.remove(sessionId, done);
+        done.complete(null);
+    }
+
+    private void runQuietly(Long sessionId, Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.warn("Task for session {} failed: {}", sessionId, e.getMessage());
+            failureListener.accept(sessionId);
+        }
+    }
+
+    private static Runnable withSubmitterContext(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        return () -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            SecurityContext previousSecurity = SecurityContextHolder.getContext();
+            if (mdc != null) MDC.setContextMap(mdc); else MDC.clear();
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                task.run();
+            } finally {
+                if (previousMdc != null) MDC.setContextMap(previousMdc); else MDC.clear();
+                SecurityContextHolder.setContext(previousSecurity);
+            }
+        };
+    }
+}
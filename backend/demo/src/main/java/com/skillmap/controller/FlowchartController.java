@@ -1,9 +1,12 @@
 package com.skillmap.controller;
 
 import com.skillmap.service.flowchart.FlowchartService;
+import com.skillmap.service.flowchart.FlowchartTopology;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -19,4 +22,24 @@ public class FlowchartController {
         Map<String, Object> graph = flowchartService.buildFlowchart(sessionId);
         return ResponseEntity.ok(graph);
     }
+
+    // Session-independent nodes, layout and edges; answers 304 while the client's ETag is current
+    @GetMapping("/topology")
+    public ResponseEntity<Map<String, Object>> getTopology(WebRequest request) {
+        FlowchartTopology topology = flowchartService.getTopology();
+        if (request.checkNotModified(topology.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(topology.getEtag()).build();
+        }
+        return ResponseEntity.ok().eTag(topology.getEtag()).body(topology.getBody());
+    }
+
+    // Per-skill status of the session only, to merge into a cached topology
+    @GetMapping("/session/{sessionId}/status")
+    public ResponseEntity<Map<String, Object>> getStatusOverlay(@PathVariable Long sessionId) {
+        Map<String, Object> overlay = flowchartService.buildStatusOverlay(sessionId);
+        if (overlay == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(overlay);
+    }
 }
@@ -1,5 +1,6 @@
 package com.skillmap.controller;
 
+import com.skillmap.config.AsyncExecutorMetrics;
 import com.skillmap.service.OpenAIService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -7,18 +8,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/health")
 @RequiredArgsConstructor
 public class HealthController {
 
     private final OpenAIService openAIService;
+    private final AsyncExecutorMetrics asyncExecutorMetrics;
 
     @GetMapping("/openai")
     public ResponseEntity<String> openAiHealth() {
         boolean ok = openAIService.testConnectivity();
         return ok ? ResponseEntity.ok("ok") : ResponseEntity.status(503).body("openai_unreachable");
     }
+
+    @GetMapping("/executors")
+    public ResponseEntity<Map<String, Object>> executorHealth() {
+        return ResponseEntity.ok(asyncExecutorMetrics.snapshot());
+    }
 }
 
 
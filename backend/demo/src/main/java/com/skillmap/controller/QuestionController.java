@@ -7,7 +7,10 @@ import com.skillmap.model.dto.UserSessionQuestionDto;
 import com.skillmap.repository.AssessmentSessionRepository;
 import com.skillmap.repository.QuestionRepository;
 import com.skillmap.repository.ResponseRepository;
+import com.skillmap.service.embedding.QuestionEmbeddingService;
 import com.skillmap.service.engine.AdaptiveQuestionEngine;
+import com.skillmap.service.engine.CatalogQuestion;
+import com.skillmap.service.engine.NextQuestionService;
 import com.skillmap.service.engine.StoppingCriteriaService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -28,6 +31,8 @@ public class QuestionController {
     private final ResponseRepository responseRepository;
     private final AdaptiveQuestionEngine adaptiveQuestionEngine;
     private final StoppingCriteriaService stoppingCriteriaService;
+    private final NextQuestionService nextQuestionService;
+    private final QuestionEmbeddingService questionEmbeddingService;
 
     @GetMapping
     public ResponseEntity<List<Question>> getAllQuestions() {
@@ -56,8 +61,7 @@ public class QuestionController {
     @PostMapping
     public ResponseEntity<Question> createQuestion(@RequestBody Question question) {
         Question savedQuestion = questionRepository.save(question);
-        // Refresh cache after creating a new question
-        adaptiveQuestionEngine.refreshQuestionsCache();
+        questionEmbeddingService.refreshReferenceVector(savedQuestion);
         return ResponseEntity.ok(savedQuestion);
     }
 
@@ -76,8 +80,8 @@ public class QuestionController {
             question.setTimesAsked(questionDetails.getTimesAsked());
             question.setAvgResponseTime(questionDetails.getAvgResponseTime());
             Question updatedQuestion = questionRepository.save(question);
-            // Refresh cache after updating a question
-            adaptiveQuestionEngine.refreshQuestionsCache();
+            // No-op unless the reference text changed
+            questionEmbeddingService.refreshReferenceVector(updatedQuestion);
             return ResponseEntity.ok(updatedQuestion);
         } else {
             return ResponseEntity.notFound().build();
@@ -88,8 +92,6 @@ public class QuestionController {
     public ResponseEntity<Void> deleteQuestion(@PathVariable Long id) {
         if (questionRepository.existsById(id)) {
             questionRepository.deleteById(id);
-            // Refresh cache after deleting a question
-            adaptiveQuestionEngine.refreshQuestionsCache();
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -108,27 +110,8 @@ public class QuestionController {
 
             AssessmentSession session = sessionOpt.get();
 
-            // Check if assessment should stop
-            if (stoppingCriteriaService.shouldStopAssessment(session)) {
-                Map<String, Object> stopResponse = Map.of(
-                    "shouldStop", true,
-                    "reason", stoppingCriteriaService.getStopReason(session),
-                    "status", stoppingCriteriaService.getStoppingCriteriaStatus(session)
-                );
-                return ResponseEntity.ok(stopResponse);
-            }
-
-            Question nextQuestion = adaptiveQuestionEngine.selectNextQuestion(session);
-            if (nextQuestion == null) {
-                Map<String, Object> stopResponse = Map.of(
-                    "shouldStop", true,
-                    "reason", "NO_MORE_QUESTIONS",
-                    "status", stoppingCriteriaService.getStoppingCriteriaStatus(session)
-                );
-                return ResponseEntity.ok(stopResponse);
-            }
-
-            return ResponseEntity.ok(nextQuestion);
+            // Precomputed after the last answer when possible; otherwise decided now
+            return ResponseEntity.ok(nextQuestionService.next(session));
         } catch (Exception e) {
             // Log the error for debugging
             System.err.println("Error fetching next question for session " + sessionToken + ": " + e.getMessage());
@@ -158,7 +141,7 @@ public class QuestionController {
     }
 
     @GetMapping("/recommended/{sessionToken}")
-    public ResponseEntity<List<Question>> getRecommendedQuestions(
+    public ResponseEntity<List<CatalogQuestion>> getRecommendedQuestions(
             @PathVariable String sessionToken,
             @RequestParam(defaultValue = "5") int count) {
         Optional<AssessmentSession> sessionOpt = sessionRepository.findBySessionToken(sessionToken);
@@ -167,7 +150,7 @@ public class QuestionController {
         }
 
         AssessmentSession session = sessionOpt.get();
-        List<Question> recommended = adaptiveQuestionEngine.getRecommendedQuestions(session, count);
+        List<CatalogQuestion> recommended = adaptiveQuestionEngine.getRecommendedQuestions(session, count);
 
         return ResponseEntity.ok(recommended);
     }
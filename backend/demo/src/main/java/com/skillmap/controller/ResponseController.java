@@ -42,6 +42,9 @@ public class ResponseController {
     @Autowired
     private com.skillmap.service.AsyncProcessingService asyncProcessingService;
 
+    @Autowired
+    private com.skillmap.service.engine.SessionStateService sessionStateService;
+
     @GetMapping("/session/{sessionId}")
     public ResponseEntity<List<Response>> getResponsesBySession(@PathVariable Long sessionId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -198,6 +201,7 @@ public class ResponseController {
         }
 
         Response saved = responseRepository.save(entity);
+        sessionStateService.recordAnswer(saved);
 
         // Trigger async processing for heavy computations
         if ("text".equalsIgnoreCase(question.getQuestionType())) {
@@ -267,6 +271,7 @@ public class ResponseController {
         response.setSpecificityScore(responseDetails.getSpecificityScore());
         response.setDepthScore(responseDetails.getDepthScore());
         Response updatedResponse = responseRepository.save(response);
+        sessionStateService.evict(response.getSession().getId());
         return ResponseEntity.ok(updatedResponse);
     }
 
@@ -289,6 +294,9 @@ public class ResponseController {
             }
         }
         responseRepository.deleteById(id);
+        if (response.getSession() != null) {
+            sessionStateService.evict(response.getSession().getId());
+        }
         return ResponseEntity.noContent().build();
     }
 }
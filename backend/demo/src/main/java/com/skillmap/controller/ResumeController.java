@@ -7,6 +7,7 @@ import com.skillmap.model.entity.User;
 import com.skillmap.repository.AssessmentSessionRepository;
 import com.skillmap.repository.ResumeDataRepository;
 import com.skillmap.repository.UserRepository;
+import com.skillmap.service.engine.ResumePriorService;
 import com.skillmap.service.nlp.GeminiResumeParserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,6 +42,9 @@ public class ResumeController {
     @Autowired
     private GeminiResumeParserService resumeParserService;
 
+    @Autowired
+    private ResumePriorService resumePriorService;
+
     @PostMapping("/upload")
     public ResponseEntity<Map<String, Object>> uploadResume(@RequestParam("file") MultipartFile file,
                                                             @RequestParam(value = "role", required = false) String role,
@@ -67,6 +71,8 @@ public class ResumeController {
             byte[] contentBytes = file.getBytes();
             // Parse the resume content using NLP service (supports PDF/DOC via Tika)
             ResumeData savedResume = resumeParserService.parseResume(contentBytes, savedSession);
+            // Skill priors for the assessment are derived once, here
+            resumePriorService.onResumeParsed(savedResume);
 
             Map<String, Object> response = new HashMap<>();
             // Build DTO-only map to avoid lazy-loading or serializer recursion
@@ -235,7 +241,9 @@ public class ResumeController {
                 return ResponseEntity.status(403).build();
             }
         }
+        Long sessionId = resume.getSession() != null ? resume.getSession().getId() : null;
         resumeDataRepository.deleteById(id);
+        resumePriorService.refresh(sessionId);
         return ResponseEntity.noContent().build();
     }
 
@@ -260,6 +268,9 @@ public class ResumeController {
                 existing.setExtractedExperience(updated.getExtractedExperience());
                 existing.setTotalYearsExperience(updated.getTotalYearsExperience());
                 ResumeData saved = resumeDataRepository.save(existing);
+                if (saved.getSession() != null) {
+                    resumePriorService.refresh(saved.getSession().getId());
+                }
                 return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
@@ -4,6 +4,7 @@ import com.skillmap.model.entity.AssessmentSession;
 import com.skillmap.model.entity.Roadmap;
 import com.skillmap.repository.AssessmentSessionRepository;
 import com.skillmap.repository.RoadmapRepository;
+import com.skillmap.service.engine.LearningPathService;
 import com.skillmap.service.engine.SkillInferenceEngine;
 import com.skillmap.service.roadmap.RoadmapGenerationService;
 
@@ -33,12 +34,28 @@ public class RoadmapController {
     @Autowired
     private com.skillmap.service.analysis.RoadmapGenerationService analysisRoadmapGenerationService;
 
+    @Autowired
+    private LearningPathService learningPathService;
+
     @GetMapping("/session/{sessionId}")
     public ResponseEntity<List<Roadmap>> getRoadmapsBySession(@PathVariable Long sessionId) {
         List<Roadmap> roadmaps = roadmapRepository.findBySessionId(sessionId);
         return ResponseEntity.ok(roadmaps);
     }
 
+    /**
+     * Learning path from the session's current skills to the target skills.
+     */
+    @GetMapping("/session/{sessionId}/path")
+    public ResponseEntity<LearningPathService.LearningPath> getLearningPath(@PathVariable Long sessionId,
+                                                                            @RequestParam List<String> targets) {
+        Optional<AssessmentSession> sessionOpt = sessionRepository.findById(sessionId);
+        if (sessionOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(learningPathService.findPath(sessionOpt.get(), targets));
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Roadmap>> getRoadmapsByUser(@PathVariable Long userId) {
         List<Roadmap> roadmaps = roadmapRepository.findByUserId(userId);
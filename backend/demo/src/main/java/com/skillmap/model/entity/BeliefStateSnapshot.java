@@ -0,0 +1,50 @@
+package com.skillmap.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "belief_state_snapshots",
+       indexes = {@Index(name = "idx_belief_snapshot_session", columnList = "session_id, model_version, event_count")})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeliefStateSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonBackReference
+    private AssessmentSession session;
+
+    @Column(name = "model_version", nullable = false)
+    private Integer modelVersion; // Belief update rules the state was folded with
+
+    @Column(name = "event_count", nullable = false)
+    private Integer eventCount; // Number of answers folded into the state
+
+    @Column(name = "last_response_id")
+    private Long lastResponseId; // Last folded answer; later answers are applied on top
+
+    @Column(name = "skill_states", columnDefinition = "JSON", nullable = false)
+    private String skillStates; // {"skillCode": [level, confidence], ...} for touched skills only
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -1,6 +1,7 @@
 package com.skillmap.model.entity;
 
 import jakarta.persistence.*;
+import com.skillmap.service.engine.QuestionCatalogEntityListener;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners(QuestionCatalogEntityListener.class)
 @Table(name = "questions")
 @Data
 @NoArgsConstructor
@@ -43,13 +45,16 @@ public class Question {
     @Column(name = "correct_answer")
     private String correctAnswer; // Correct answer for MCQ
 
+    private static final com.fasterxml.jackson.databind.ObjectMapper OPTIONS_MAPPER =
+        new com.fasterxml.jackson.databind.ObjectMapper();
+
     // Helper method to get options as List
     public List<String> getOptionsList() {
         if (options == null || options.trim().isEmpty()) {
             return new java.util.ArrayList<>();
         }
         try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().readValue(
+            return OPTIONS_MAPPER.readValue(
                 options,
                 new com.fasterxml.jackson.core.type.TypeReference<List<String>>() {}
             );
@@ -0,0 +1,71 @@
+package com.skillmap.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "question_embeddings",
+       uniqueConstraints = {@UniqueConstraint(columnNames = {"question_id", "embedding_model"})})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionEmbedding {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "question_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonBackReference
+    private Question question;
+
+    @Column(name = "embedding_model", nullable = false, length = 100)
+    private String embeddingModel; // Provider model id, so vectors from different models never mix
+
+    @Column(name = "source_hash", nullable = false, length = 64)
+    private String sourceHash; // SHA-256 of the reference text the vector was computed from
+
+    @Column(name = "dimensions", nullable = false)
+    private Integer dimensions;
+
+    @Column(name = "vector", columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] vector; // Little-endian float32 values, already L2-normalized
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Helper method to get the stored vector as floats
+    public float[] getVectorArray() {
+        if (vector == null) {
+            return null;
+        }
+        float[] out = new float[vector.length / Float.BYTES];
+        ByteBuffer.wrap(vector).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(out);
+        return out;
+    }
+
+    // Helper method to store a vector compactly as float32
+    public void setVectorArray(float[] values) {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.asFloatBuffer().put(values);
+        this.vector = buf.array();
+        this.dimensions = values.length;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
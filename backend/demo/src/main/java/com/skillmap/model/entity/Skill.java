@@ -1,6 +1,8 @@
 package com.skillmap.model.entity;
 
 import jakarta.persistence.*;
+import com.skillmap.service.engine.QuestionCatalogEntityListener;
+import com.skillmap.service.engine.SkillGraphEntityListener;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -11,6 +13,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners({QuestionCatalogEntityListener.class, SkillGraphEntityListener.class})
 @Table(name = "skills")
 @Data
 @NoArgsConstructor
@@ -41,8 +41,9 @@ public class SkillAssessment {
     @Column(name = "confidence_score", columnDefinition = "DECIMAL(3,2)", nullable = false)
     private Double confidenceScore;
 
+    @Deprecated
     @Column(name = "evidence_response_ids", columnDefinition = "JSON")
-    private String evidenceResponseIds;
+    private String evidenceResponseIds; // No longer written; evidence is appended to skill_evidence
 
     @Column(name = "consistency_score", columnDefinition = "DECIMAL(3,2)")
     private Double consistencyScore;
@@ -57,6 +58,10 @@ public class SkillAssessment {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    @Version
+    @Column(name = "version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version; // Optimistic lock: concurrent belief updates of one row fail instead of overwriting
+
     public enum DepthRating {
         surface, moderate, deep
     }
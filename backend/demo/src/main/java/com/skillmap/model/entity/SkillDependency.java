@@ -5,8 +5,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.skillmap.service.engine.SkillGraphEntityListener;
 
 @Entity
+@EntityListeners(SkillGraphEntityListener.class)
 @Table(name = "skill_dependencies")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,21 @@
+package com.skillmap.repository;
+
+import com.skillmap.model.entity.BeliefStateSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BeliefStateSnapshotRepository extends JpaRepository<BeliefStateSnapshot, Long> {
+
+    Optional<BeliefStateSnapshot> findFirstBySessionIdAndModelVersionOrderByEventCountDesc(Long sessionId,
+                                                                                         Integer modelVersion);
+
+    @Modifying
+    @Query("DELETE FROM BeliefStateSnapshot b WHERE b.session.id = :sessionId")
+    int deleteBySessionId(@Param("sessionId") Long sessionId);
+}
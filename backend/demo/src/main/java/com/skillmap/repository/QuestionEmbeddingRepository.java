@@ -0,0 +1,13 @@
+package com.skillmap.repository;
+
+import com.skillmap.model.entity.QuestionEmbedding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface QuestionEmbeddingRepository extends JpaRepository<QuestionEmbedding, Long> {
+
+    Optional<QuestionEmbedding> findByQuestionIdAndEmbeddingModel(Long questionId, String embeddingModel);
+}
@@ -22,5 +22,8 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
 
     List<Question> findBySkillId(Long skillId);
 
+    @Query("SELECT q FROM Question q LEFT JOIN FETCH q.skill")
+    List<Question> findAllWithSkill();
+
     Optional<Question> findByQuestionText(String questionText);
 }
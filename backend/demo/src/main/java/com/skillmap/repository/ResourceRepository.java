@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +14,9 @@ public interface ResourceRepository extends JpaRepository<Resource, Long> {
 
     List<Resource> findBySkillId(Long skillId);
 
+    @Query("SELECT r FROM Resource r WHERE r.skill.id IN :skillIds ORDER BY r.id")
+    List<Resource> findBySkillIdIn(@Param("skillIds") Collection<Long> skillIds);
+
     List<Resource> findBySkillIdAndTargetLevel(Long skillId, Integer targetLevel);
 
     @Query("SELECT r FROM Resource r WHERE r.skill.id = :skillId AND r.targetLevel <= :targetLevel ORDER BY r.rating DESC, r.estimatedHours ASC")
@@ -1,6 +1,7 @@
 package com.skillmap.repository;
 
 import com.skillmap.model.entity.Response;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -17,4 +18,26 @@ public interface ResponseRepository extends JpaRepository<Response, Long> {
 
     @Query("select r.question.id from Response r where r.session.id = :sessionId")
     List<Long> findAnsweredQuestionIds(@Param("sessionId") Long sessionId);
+
+    // questionId, questionType, topic, totalTimeSeconds, skillCode, isCorrect, specificityScore,
+    // depthScore, responseText length, difficultyLevel, difficulty, options - in answer order
+    @Query("select q.id, q.questionType, q.topic, r.totalTimeSeconds, s.skillCode, r.isCorrect, " +
+           "r.specificityScore, r.depthScore, length(r.responseText), q.difficultyLevel, q.difficulty, q.options " +
+           "from Response r join r.question q left join q.skill s " +
+           "where r.session.id = :sessionId order by r.answeredAt asc, r.id asc")
+    List<Object[]> findAnswerSummariesBySessionId(@Param("sessionId") Long sessionId);
+
+    // responseId, skillCode, questionType, isCorrect, specificityScore, responseText length, depthScore -
+    // answers after the given response, in the order belief updates apply them
+    @Query("select r.id, s.skillCode, q.questionType, r.isCorrect, r.specificityScore, length(r.responseText), " +
+           "r.depthScore from Response r join r.question q left join q.skill s " +
+           "where r.session.id = :sessionId and r.id > :afterResponseId order by r.id asc")
+    List<Object[]> findBeliefEventsBySessionId(@Param("sessionId") Long sessionId,
+                                               @Param("afterResponseId") Long afterResponseId);
+
+    @Query("select distinct r.session.id from Response r where r.session.id > :afterId and not exists " +
+           "(select b.id from BeliefStateSnapshot b where b.session.id = r.session.id and b.modelVersion = :modelVersion) " +
+           "order by r.session.id")
+    List<Long> findSessionIdsWithoutSnapshot(@Param("modelVersion") Integer modelVersion, @Param("afterId") Long afterId,
+                                             Pageable pageable);
 }
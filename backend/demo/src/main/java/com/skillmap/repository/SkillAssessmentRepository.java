@@ -21,6 +21,9 @@ public interface SkillAssessmentRepository extends JpaRepository<SkillAssessment
     @Query("SELECT sa FROM SkillAssessment sa WHERE sa.session.id = :sessionId")
     List<SkillAssessment> findBySessionId(@Param("sessionId") Long sessionId);
 
+    @Query("SELECT sa FROM SkillAssessment sa JOIN FETCH sa.skill WHERE sa.session.id = :sessionId")
+    List<SkillAssessment> findBySessionIdWithSkill(@Param("sessionId") Long sessionId);
+
     @Query("SELECT sa.skill.skillCode, sa.assessedLevel FROM SkillAssessment sa WHERE sa.session.id = :sessionId")
     List<Object[]> findSkillLevelsBySessionId(@Param("sessionId") Long sessionId);
 
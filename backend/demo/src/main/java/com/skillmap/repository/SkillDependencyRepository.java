@@ -2,8 +2,11 @@ package com.skillmap.repository;
 
 import com.skillmap.model.entity.SkillDependency;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +15,10 @@ public interface SkillDependencyRepository extends JpaRepository<SkillDependency
     List<SkillDependency> findByParentSkillId(Long parentSkillId);
 
     List<SkillDependency> findByChildSkillId(Long childSkillId);
+
+    @Query("SELECT d FROM SkillDependency d JOIN FETCH d.parentSkill JOIN FETCH d.childSkill")
+    List<SkillDependency> findAllWithSkills();
+
+    @Query("SELECT d FROM SkillDependency d JOIN FETCH d.parentSkill JOIN FETCH d.childSkill WHERE d.parentSkill.id IN :parentSkillIds")
+    List<SkillDependency> findByParentSkillIdInWithSkills(@Param("parentSkillIds") Collection<Long> parentSkillIds);
 }
@@ -0,0 +1,9 @@
+package com.skillmap.repository;
+
+import com.skillmap.model.entity.SkillEvidence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SkillEvidenceRepository extends JpaRepository<SkillEvidence, Long> {
+}
@@ -1,55 +1,142 @@
 package com.skillmap.service;
 
+import com.skillmap.config.AsyncConfig;
+import com.skillmap.config.AsyncExecutorMetrics;
+import com.skillmap.config.SessionSerialExecutor;
+import com.skillmap.model.entity.AssessmentSession;
 import com.skillmap.model.entity.Response;
-import com.skillmap.service.embedding.EmbeddingService;
+import com.skillmap.repository.AssessmentSessionRepository;
+import com.skillmap.repository.ResponseRepository;
+import com.skillmap.service.embedding.QuestionEmbeddingService;
+import com.skillmap.service.engine.BeliefProjectionService;
+import com.skillmap.service.engine.NextQuestionService;
 import com.skillmap.service.engine.SkillInferenceEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AsyncProcessingService {
 
-    private final EmbeddingService embeddingService;
+    private final QuestionEmbeddingService questionEmbeddingService;
     private final SkillInferenceEngine skillInferenceEngine;
+    private final ResponseRepository responseRepository;
+    private final AssessmentSessionRepository sessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SimilarityScoreWriter similarityScoreWriter;
+    private final NextQuestionService nextQuestionService;
+    private final SessionSerialExecutor beliefSessionExecutor;
+    private final BeliefProjectionService beliefProjectionService;
+    private final AsyncExecutorMetrics asyncExecutorMetrics;
+
+    @Value("${async.beliefs.max-attempts:3}")
+    private int beliefMaxAttempts;
 
     /**
      * Asynchronously compute similarity scores for text responses
      */
-    @Async
+    @Async(AsyncConfig.SIMILARITY_EXECUTOR)
     public void computeSimilarityScoreAsync(Response response) {
         try {
             if ("text".equalsIgnoreCase(response.getQuestion().getQuestionType())) {
-                String expected = response.getQuestion().getContextHint();
-                if (expected == null || expected.isBlank()) {
-                    expected = response.getQuestion().getQuestionText();
-                }
-
-                Double sim = embeddingService.computeCosineSimilarity(expected, response.getResponseText());
+                // Reference vector is precomputed per question, so only the answer is embedded here
+                Double sim = questionEmbeddingService.similarityToReference(response.getQuestion(), response.getResponseText());
                 if (sim != null) {
                     response.setSimilarityScore(sim);
-                    // Note: In a real implementation, you'd save this back to the database
+                    similarityScoreWriter.submit(response.getId(), sim);
                     log.debug("Computed similarity score {} for response {}", sim, response.getId());
                 }
             }
         } catch (Exception e) {
+            asyncExecutorMetrics.recordFailure(AsyncConfig.SIMILARITY_EXECUTOR);
             log.warn("Failed to compute similarity score for response {}: {}", response.getId(), e.getMessage());
         }
     }
 
     /**
-     * Asynchronously update Bayesian beliefs from response
+     * Asynchronously update Bayesian beliefs from response, then precompute the session's next question
+     * against the updated beliefs so the client's next-question request is served from memory.
+     * Updates of one session run one at a time in answer order; different sessions run in parallel.
      */
-    @Async
     public void updateBeliefsAsync(Response response) {
+        Long sessionId = response.getSession() != null ? response.getSession().getId() : null;
+        if (sessionId == null) {
+            return;
+        }
+        beliefSessionExecutor.submit(sessionId, () -> {
+            updateBeliefs(response.getId());
+            snapshotBeliefs(sessionId);
+        });
+    }
+
+    private void snapshotBeliefs(Long sessionId) {
+        try {
+            beliefProjectionService.snapshotIfDue(sessionId);
+        } catch (Exception e) {
+            // Snapshots only speed up rebuilds; the next update tries again
+            log.debug("Belief snapshot failed for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void updateBeliefs(Long responseId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // The request's persistence context is gone by now, so reload to get live lazy associations
+                Long sessionId = transactionTemplate.execute(status ->
+                    responseRepository.findById(responseId).map(r -> {
+                        skillInferenceEngine.updateBeliefsFromResponse(r);
+                        return r.getSession().getId();
+                    }).orElse(null));
+                log.debug("Updated beliefs for response {}", responseId);
+                if (sessionId != null) {
+                    afterBeliefUpdate(sessionId);
+                }
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                // Another writer changed the same assessments; the whole update is retried on fresh rows
+                if (attempt >= beliefMaxAttempts) {
+                    asyncExecutorMetrics.recordFailure(AsyncConfig.BELIEF_EXECUTOR);
+                    log.warn("Giving up belief update for response {} after {} conflicting attempts", responseId, attempt);
+                    return;
+                }
+                log.debug("Belief update for response {} conflicted, retrying (attempt {})", responseId, attempt);
+            } catch (Exception e) {
+                asyncExecutorMetrics.recordFailure(AsyncConfig.BELIEF_EXECUTOR);
+                log.warn("Failed to update beliefs for response {}: {}", responseId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Work derived from the committed update, in its own short transaction so nothing computed here can
+     * come from beliefs that were rolled back or are about to be retried.
+     */
+    private void afterBeliefUpdate(Long sessionId) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                sessionRepository.findById(sessionId).ifPresent(session -> {
+                    // Warm the session's belief cache so the next selection does not pay for it
+                    skillInferenceEngine.getSkillBeliefs(session);
+                    prefetchNextQuestion(session);
+                }));
+        } catch (Exception e) {
+            log.debug("Post-update work failed for session {}: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private void prefetchNextQuestion(AssessmentSession session) {
         try {
-            skillInferenceEngine.updateBeliefsFromResponse(response);
-            log.debug("Updated beliefs for response {}", response.getId());
+            nextQuestionService.prefetch(session);
         } catch (Exception e) {
-            log.warn("Failed to update beliefs for response {}: {}", response.getId(), e.getMessage());
+            // The next-question endpoint computes it on demand instead
+            log.debug("Next question prefetch failed for session {}: {}", session.getId(), e.getMessage());
         }
     }
 }
@@ -7,6 +7,7 @@ import com.skillmap.model.entity.Question;
 import com.skillmap.model.entity.Skill;
 import com.skillmap.repository.QuestionRepository;
 import com.skillmap.repository.SkillRepository;
+import com.skillmap.service.embedding.QuestionEmbeddingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -27,6 +28,7 @@ public class QuestionDataLoader implements CommandLineRunner {
     private final QuestionRepository questionRepository;
     private final SkillRepository skillRepository;
     private final ObjectMapper objectMapper;
+    private final QuestionEmbeddingService questionEmbeddingService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -173,7 +175,9 @@ public class QuestionDataLoader implements CommandLineRunner {
             String explanation = (String) questionData.get("explanation");
             question.setExplanation(explanation);
 
-            questionRepository.save(question);
+            Question saved = questionRepository.save(question);
+            // Skipped when the stored vector already matches the text and model
+            questionEmbeddingService.refreshReferenceVector(saved);
         } catch (Exception e) {
             log.error("Failed to save question: {}", questionData.get("question"), e);
         }
@@ -0,0 +1,153 @@
+package com.skillmap.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind sink for asynchronously computed similarity scores.
+ * Updates are coalesced per response (latest value wins) and flushed as batched JDBC UPDATEs
+ * every {@code batchSize} items or {@code flushIntervalMs}, whichever comes first.
+ * Each UPDATE sets an absolute value, so replaying a batch after a failure is harmless.
+ */
+@Service
+@Slf4j
+public class SimilarityScoreWriter {
+
+    private static final String UPDATE_SQL = "UPDATE responses SET similarity_score = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+
+    private final ConcurrentHashMap<Long, PendingScore> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "similarity-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SimilarityScoreWriter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${similarity.writer.batch-size:50}") int batchSize,
+            @Value("${similarity.writer.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${similarity.writer.max-attempts:5}") int maxAttempts
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(10, flushIntervalMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a similarity score for a stored response. Never blocks on the database.
+     */
+    public void submit(Long responseId, double similarity) {
+        if (responseId == null) return;
+        pending.put(responseId, new PendingScore(similarity, 0));
+        if (pending.size() >= batchSize && !scheduler.isShutdown()) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Similarity score flush failed: {}", e.getMessage());
+        }
+    }
+
+    void flush() {
+        if (!flushLock.tryLock()) {
+            return; // another flush is already draining
+        }
+        try {
+            while (!pending.isEmpty()) {
+                List<Long> ids = new ArrayList<>(batchSize);
+                List<PendingScore> scores = new ArrayList<>(batchSize);
+                Iterator<Map.Entry<Long, PendingScore>> it = pending.entrySet().iterator();
+                while (it.hasNext() && ids.size() < batchSize) {
+                    Map.Entry<Long, PendingScore> e = it.next();
+                    // remove(key, value) so a newer value submitted meanwhile stays queued
+                    if (pending.remove(e.getKey(), e.getValue())) {
+                        ids.add(e.getKey());
+                        scores.add(e.getValue());
+                    }
+                }
+                if (ids.isEmpty()) {
+                    return;
+                }
+                if (!writeBatch(ids, scores)) {
+                    return; // retry on the next tick
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private boolean writeBatch(List<Long> ids, List<PendingScore> scores) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            args.add(new Object[]{scores.get(i).similarity(), ids.get(i)});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            log.debug("Flushed {} similarity scores", ids.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to flush {} similarity scores: {}", ids.size(), e.getMessage());
+            for (int i = 0; i < ids.size(); i++) {
+                PendingScore failed = scores.get(i);
+                if (failed.attempts() + 1 >= maxAttempts) {
+                    log.error("Dropping similarity score for response {} after {} attempts", ids.get(i), maxAttempts);
+                    continue;
+                }
+                // Keep any newer value that arrived while this batch was in flight
+                pending.putIfAbsent(ids.get(i), new PendingScore(failed.similarity(), failed.attempts() + 1));
+            }
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        if (!pending.isEmpty()) {
+            log.warn("{} similarity scores were not persisted at shutdown", pending.size());
+        }
+    }
+
+    private record PendingScore(double similarity, int attempts) {}
+}
@@ -1,9 +1,7 @@
 package com.skillmap.service.analysis;
 
 import com.skillmap.model.entity.AssessmentSession;
-import com.skillmap.model.entity.Response;
 import com.skillmap.model.entity.Skill;
-import com.skillmap.model.entity.SkillAssessment;
 import com.skillmap.model.entity.SkillDependency;
 import com.skillmap.model.entity.Resource;
 import com.skillmap.model.entity.ResumeData;
@@ -13,6 +11,7 @@ import com.skillmap.repository.ResourceRepository;
 import com.skillmap.repository.SkillAssessmentRepository;
 import com.skillmap.repository.ResumeDataRepository;
 import com.skillmap.service.OpenAIService;
+import com.skillmap.service.engine.LearningPathService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -35,6 +34,7 @@ public class RoadmapGenerationService {
     private final SkillAssessmentRepository skillAssessmentRepository;
     private final ResumeDataRepository resumeDataRepository;
     private final OpenAIService openAIService;
+    private final LearningPathService learningPathService;
 
     /**
      * Generates a personalized roadmap data structure for frontend visualization.
@@ -44,30 +44,42 @@ public class RoadmapGenerationService {
     public Map<String, Object> generatePersonalizedRoadmap(AssessmentSession session) {
         log.info("Generating personalized roadmap for session: {}", session.getId());
 
+        // Skills are loaded once and looked up by code from here on
+        Map<String, Skill> skillsByCode = new LinkedHashMap<>();
+        skillRepository.findAll().forEach(skill -> skillsByCode.putIfAbsent(skill.getSkillCode(), skill));
+
         // Step 1: Get skill gaps from skill assessments and resume data
-        Map<String, Double> skillGaps = getSkillGaps(session);
+        Map<String, Double> skillGaps = getSkillGaps(session, skillsByCode.keySet());
 
         // Step 2: Get resume skills to adjust gaps
         Map<String, Double> resumeSkillLevels = getResumeSkillLevels(session);
         skillGaps = adjustSkillGapsWithResume(skillGaps, resumeSkillLevels);
 
         // Step 3: Identify top skill gaps to focus on
-        List<String> topGaps = skillGaps.entrySet().stream()
+        List<Skill> topSkills = skillGaps.entrySet().stream()
             .filter(e -> e.getValue() > 0.3) // threshold for gap
             .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
             .limit(5)
-            .map(Map.Entry::getKey)
+            .map(e -> skillsByCode.get(e.getKey()))
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
-
-        // Step 4: Build roadmap phases and milestones based on skill dependencies and resources
+        List<String> topGaps = topSkills.stream().map(Skill::getSkillCode).collect(Collectors.toList());
+
+        // Step 4: Dependencies of the top skills, then resources of those skills and their dependencies,
+        // each in one query
+        Map<Long, List<SkillDependency>> dependenciesByParent = topSkills.isEmpty() ? Map.of()
+            : skillDependencyRepository.findByParentSkillIdInWithSkills(
+                    topSkills.stream().map(Skill::getId).collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(dep -> dep.getParentSkill().getId(), LinkedHashMap::new, Collectors.toList()));
+        Set<Long> resourceSkillIds = new LinkedHashSet<>();
+        topSkills.forEach(skill -> resourceSkillIds.add(skill.getId()));
+        dependenciesByParent.values().forEach(deps -> deps.forEach(dep -> resourceSkillIds.add(dep.getChildSkill().getId())));
+        Map<Long, List<Map<String, Object>>> resourcesBySkill = getResourcesBySkill(resourceSkillIds);
+
+        // Step 5: Build roadmap phases and milestones in one pass over the top skills
         List<Map<String, Object>> phases = new ArrayList<>();
-        int phaseIndex = 1;
-
-        for (String skillCode : topGaps) {
-            Optional<Skill> skillOpt = skillRepository.findBySkillCode(skillCode);
-            if (skillOpt.isEmpty()) continue;
-            Skill skill = skillOpt.get();
-
+        int totalMilestones = 0;
+        for (Skill skill : topSkills) {
             Map<String, Object> phase = new HashMap<>();
             phase.put("title", "Develop " + skill.getDisplayName());
             phase.put("description", skill.getDescription() != null ? skill.getDescription() : "Improve your skills in " + skill.getDisplayName());
@@ -77,12 +89,11 @@ public class RoadmapGenerationService {
             List<Map<String, Object>> milestones = new ArrayList<>();
 
             // Add dependencies as milestones
-            List<SkillDependency> dependencies = skillDependencyRepository.findByParentSkillId(skill.getId());
-            for (SkillDependency dep : dependencies) {
+            for (SkillDependency dep : dependenciesByParent.getOrDefault(skill.getId(), List.of())) {
                 Map<String, Object> milestone = new HashMap<>();
                 milestone.put("title", "Master prerequisite: " + dep.getChildSkill().getDisplayName());
                 milestone.put("description", "Understand and practice " + dep.getChildSkill().getDisplayName());
-                milestone.put("resources", getResourcesForSkill(dep.getChildSkill().getId()));
+                milestone.put("resources", resourcesBySkill.getOrDefault(dep.getChildSkill().getId(), List.of()));
                 milestones.add(milestone);
             }
 
@@ -90,53 +101,73 @@ public class RoadmapGenerationService {
             Map<String, Object> mainMilestone = new HashMap<>();
             mainMilestone.put("title", "Master skill: " + skill.getDisplayName());
             mainMilestone.put("description", "Focus on mastering " + skill.getDisplayName());
-            mainMilestone.put("resources", getResourcesForSkill(skill.getId()));
+            mainMilestone.put("resources", resourcesBySkill.getOrDefault(skill.getId(), List.of()));
             milestones.add(mainMilestone);
 
             phase.put("milestones", milestones);
             phases.add(phase);
-            phaseIndex++;
+            totalMilestones += milestones.size();
         }
 
-        // Step 5: Generate AI tailored suggestions for roadmap summary (removed to avoid token waste)
-        String userResponsesSummary = summarizeUserResponses(session);
-        String skillAnalysis = analyzeSkillGaps(skillGaps);
-
+        // AI tailored suggestions and the response summary they were built from were removed to avoid
+        // token waste - roadmap is now purely data-driven
         Map<String, Object> roadmap = new HashMap<>();
         roadmap.put("phases", phases);
         roadmap.put("totalDuration", phases.size() * 4);
-        roadmap.put("totalMilestones", phases.stream().mapToInt(p -> ((List<?>)p.get("milestones")).size()).sum());
-        // Removed aiSuggestions to avoid token waste - roadmap is now purely data-driven
+        roadmap.put("totalMilestones", totalMilestones);
+        roadmap.put("learningPath", learningPath(topGaps, skillGaps));
 
         log.info("Generated personalized roadmap for session: {}", session.getId());
         return roadmap;
     }
 
-    private List<Map<String, Object>> getResourcesForSkill(Long skillId) {
-        List<Resource> resources = resourceRepository.findBySkillId(skillId);
-        return resources.stream().map(resource -> {
+    /**
+     * Learning path to the top gaps, with the levels the gaps were derived from.
+     */
+    private List<LearningPathService.Step> learningPath(List<String> topGaps, Map<String, Double> skillGaps) {
+        if (topGaps.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Double> levels = new HashMap<>();
+        skillGaps.forEach((skillCode, gap) -> levels.put(skillCode, 1.0 - gap));
+        return learningPathService.findPath(topGaps, levels).steps();
+    }
+
+    /**
+     * Resources of the given skills as response maps, grouped by skill id, from one query.
+     */
+    private Map<Long, List<Map<String, Object>>> getResourcesBySkill(Collection<Long> skillIds) {
+        if (skillIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, List<Map<String, Object>>> resourcesBySkill = new HashMap<>();
+        for (Resource resource : resourceRepository.findBySkillIdIn(skillIds)) {
             Map<String, Object> resMap = new HashMap<>();
             resMap.put("title", resource.getTitle());
             resMap.put("resourceType", resource.getResourceType());
             resMap.put("url", resource.getUrl());
             resMap.put("description", resource.getDescription());
-            return resMap;
-        }).collect(Collectors.toList());
+            resourcesBySkill.computeIfAbsent(resource.getSkill().getId(), id -> new ArrayList<>()).add(resMap);
+        }
+        return resourcesBySkill;
     }
 
-    private Map<String, Double> getSkillGaps(AssessmentSession session) {
-        List<SkillAssessment> assessments = skillAssessmentRepository.findBySession(session);
-        Map<String, Double> gaps = new HashMap<>();
-
-        skillRepository.findAll().forEach(skill -> {
-            double level = assessments.stream()
-                .filter(assessment -> assessment.getSkill().equals(skill))
-                .map(SkillAssessment::getAssessedLevel)
-                .findFirst()
-                .orElse(0.5);
-            gaps.put(skill.getSkillCode(), 1.0 - level);
-        });
+    /**
+     * Gap of every skill: 1 - assessed level, or 0.5 for a skill the session has not assessed.
+     */
+    private Map<String, Double> getSkillGaps(AssessmentSession session, Collection<String> skillCodes) {
+        // First assessment per skill, as one projection query instead of a scan per skill
+        Map<String, Double> levels = new HashMap<>();
+        for (Object[] row : skillAssessmentRepository.findSkillLevelsBySessionId(session.getId())) {
+            if (row[1] != null) {
+                levels.putIfAbsent((String) row[0], ((Number) row[1]).doubleValue());
+            }
+        }
 
+        Map<String, Double> gaps = new HashMap<>();
+        for (String skillCode : skillCodes) {
+            gaps.put(skillCode, 1.0 - levels.getOrDefault(skillCode, 0.5));
+        }
         return gaps;
     }
 
@@ -201,61 +232,4 @@ public class RoadmapGenerationService {
             return new ArrayList<>();
         }
     }
-
-    private String summarizeUserResponses(AssessmentSession session) {
-        // Summarize user responses with evidence-based insights
-        StringBuilder summary = new StringBuilder();
-        summary.append("User Assessment Summary:\n");
-
-        // Analyze response patterns for insights
-        List<Response> responses = session.getResponses();
-        if (responses != null && !responses.isEmpty()) {
-            int totalResponses = responses.size();
-            int shortResponses = (int) responses.stream()
-                .filter(r -> r.getResponseText() != null && r.getResponseText().length() < 50)
-                .count();
-            int lowConfidenceResponses = (int) responses.stream()
-                .filter(r -> r.getConfidenceLevel() != null && r.getConfidenceLevel() < 0.6)
-                .count();
-            int quickResponses = (int) responses.stream()
-                .filter(r -> r.getThinkTimeSeconds() != null && r.getThinkTimeSeconds() < 30)
-                .count();
-
-            summary.append(String.format("- Total responses: %d\n", totalResponses));
-            if (shortResponses > totalResponses * 0.3) {
-                summary.append("- Many brief responses suggest areas needing deeper understanding\n");
-            }
-            if (lowConfidenceResponses > totalResponses * 0.4) {
-                summary.append("- Multiple uncertain responses indicate knowledge gaps\n");
-            }
-            if (quickResponses > totalResponses * 0.3) {
-                summary.append("- Quick responses may indicate surface-level knowledge in some areas\n");
-            }
-
-            // Add specific response examples for context
-            summary.append("\nKey Response Patterns:\n");
-            responses.stream()
-                .filter(r -> r.getResponseText() != null && r.getResponseText().length() > 10)
-                .limit(3)
-                .forEach(r -> {
-                    summary.append(String.format("- Question: %s\n",
-                        r.getQuestion() != null ? r.getQuestion().getQuestionText() : "N/A"));
-                    summary.append(String.format("  Response: %s\n",
-                        r.getResponseText().substring(0, Math.min(100, r.getResponseText().length()))));
-                });
-        }
-
-        return summary.toString();
-    }
-
-    private String analyzeSkillGaps(Map<String, Double> skillGaps) {
-        // Placeholder: create textual skill gap analysis for AI prompt
-        StringBuilder sb = new StringBuilder();
-        skillGaps.forEach((skill, gap) -> {
-            if (gap > 0.3) {
-                sb.append(String.format("Skill %s has a gap of %.2f. ", skill, gap));
-            }
-        });
-        return sb.toString();
-    }
 }
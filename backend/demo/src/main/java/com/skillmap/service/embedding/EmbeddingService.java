@@ -1,23 +1,33 @@
 package com.skillmap.service.embedding;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 @Service
 @Slf4j
 public class EmbeddingService {
 
+    public static final String OPENAI_MODEL = "text-embedding-3-small";
+    public static final String HUGGING_FACE_MODEL = "sentence-transformers/all-MiniLM-L6-v2";
+
+    // Per-thread decode buffer; grown on demand and reused across calls to avoid per-response garbage
+    private static final ThreadLocal<float[]> DECODE_BUFFER = ThreadLocal.withInitial(() -> new float[2048]);
+
     private final String openAiApiKey;
     private final String huggingFaceApiKey;
     private final HttpClient httpClient;
@@ -29,7 +39,11 @@ public class EmbeddingService {
     ) {
         this.openAiApiKey = openAiApiKey == null ? "" : openAiApiKey.trim();
         this.huggingFaceApiKey = huggingFaceApiKey == null ? "" : huggingFaceApiKey.trim();
-        this.httpClient = HttpClient.newHttpClient();
+        // Shared client: pooled keep-alive connections, HTTP/2 multiplexing where the provider supports it
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
     }
 
     /**
@@ -38,8 +52,8 @@ public class EmbeddingService {
      */
     public Double computeCosineSimilarity(String a, String b) {
         try {
-            double[] ea = embed(a);
-            double[] eb = embed(b);
+            float[] ea = embed(a);
+            float[] eb = embed(b);
             if (ea == null || eb == null || ea.length != eb.length) return null;
             double dot = 0.0, na = 0.0, nb = 0.0;
             for (int i = 0; i < ea.length; i++) {
@@ -57,15 +71,61 @@ public class EmbeddingService {
         }
     }
 
+    /**
+     * Cosine similarity between a precomputed reference vector and a text embedded with the same model.
+     * Returns null if the model is unavailable; caller should fallback.
+     */
+    public Double computeCosineSimilarity(float[] reference, String model, String text) {
+        try {
+            float[] v = embed(text, model);
+            if (reference == null || v == null || reference.length != v.length) return null;
+            // Both vectors are L2-normalized, so the dot product is the cosine
+            double dot = 0.0;
+            for (int i = 0; i < v.length; i++) dot += reference[i] * v[i];
+            return Math.max(0.0, Math.min(1.0, dot));
+        } catch (Exception e) {
+            log.warn("Cosine similarity against reference failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Model id that {@link #embed(String)} prefers, or null if no provider is configured.
+     * Stored vectors are keyed by this id so a provider switch never mixes vector spaces.
+     */
+    public String activeModel() {
+        if (!openAiApiKey.isEmpty()) return OPENAI_MODEL;
+        if (!huggingFaceApiKey.isEmpty()) return HUGGING_FACE_MODEL;
+        return null;
+    }
+
+    /**
+     * Embed with one specific model, without falling back to another provider.
+     */
+    public float[] embed(String text, String model) {
+        if (text == null || text.isBlank() || model == null) return null;
+        try {
+            if (OPENAI_MODEL.equals(model) && !openAiApiKey.isEmpty()) {
+                return embedOpenAI(text);
+            }
+            if (HUGGING_FACE_MODEL.equals(model) && !huggingFaceApiKey.isEmpty()) {
+                return embedHuggingFace(text);
+            }
+        } catch (Exception e) {
+            log.warn("Embedding with {} failed: {}", model, e.getMessage());
+        }
+        return null;
+    }
+
     /**
      * Try OpenAI first, then Hugging Face. Return null if neither available.
      */
-    public double[] embed(String text) {
+    public float[] embed(String text) {
         if (text == null || text.isBlank()) return null;
         // Prefer OpenAI embeddings if key present
         if (!openAiApiKey.isEmpty()) {
             try {
-                double[] v = embedOpenAI(text);
+                float[] v = embedOpenAI(text);
                 if (v != null) return v;
             } catch (Exception e) {
                 log.warn("OpenAI embedding failed: {}", e.getMessage());
@@ -74,7 +134,7 @@ public class EmbeddingService {
         // Fallback to Hugging Face feature extraction
         if (!huggingFaceApiKey.isEmpty()) {
             try {
-                double[] v = embedHuggingFace(text);
+                float[] v = embedHuggingFace(text);
                 if (v != null) return v;
             } catch (Exception e) {
                 log.warn("HF embedding failed: {}", e.getMessage());
@@ -83,69 +143,113 @@ public class EmbeddingService {
         return null;
     }
 
-    private double[] embedOpenAI(String text) throws Exception {
+    private float[] embedOpenAI(String text) throws Exception {
         // OpenAI embeddings endpoint
         String body = mapper.createObjectNode()
-                .put("model", "text-embedding-3-small")
+                .put("model", OPENAI_MODEL)
                 .putArray("input").add(text)
                 .toString();
 
         HttpRequest req = HttpRequest.newBuilder()
                 .uri(URI.create("https://api.openai.com/v1/embeddings"))
+                .timeout(Duration.ofSeconds(30))
                 .header("Authorization", "Bearer " + openAiApiKey)
                 .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
                 .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
                 .build();
 
-        HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-            JsonNode root = mapper.readTree(resp.body());
-            JsonNode arr = root.path("data").get(0).path("embedding");
-            if (arr.isArray()) {
-                double[] vec = new double[arr.size()];
-                for (int i = 0; i < arr.size(); i++) vec[i] = arr.get(i).asDouble();
-                return l2Normalize(vec);
+        HttpResponse<InputStream> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = decodedBody(resp)) {
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                // {"data":[{"embedding":[...]}], ...} - stream to the first "embedding" array
+                try (JsonParser p = mapper.getFactory().createParser(in)) {
+                    JsonToken t;
+                    while ((t = p.nextToken()) != null) {
+                        if (t == JsonToken.FIELD_NAME && "embedding".equals(p.currentName())
+                                && p.nextToken() == JsonToken.START_ARRAY) {
+                            return l2Normalize(readFloatArray(p));
+                        }
+                    }
+                }
+            } else {
+                log.warn("OpenAI embeddings HTTP {}: {}", resp.statusCode(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
             }
-        } else {
-            log.warn("OpenAI embeddings HTTP {}: {}", resp.statusCode(), resp.body());
         }
         return null;
     }
 
-    private double[] embedHuggingFace(String text) throws Exception {
+    private float[] embedHuggingFace(String text) throws Exception {
         // Use sentence-transformers/all-MiniLM-L6-v2 via HF inference API (feature-extraction)
-        String model = "sentence-transformers/all-MiniLM-L6-v2";
-        String url = "https://api-inference.huggingface.co/pipeline/feature-extraction/" + model;
+        String url = "https://api-inference.huggingface.co/pipeline/feature-extraction/" + HUGGING_FACE_MODEL;
         String body = mapper.createObjectNode().put("inputs", text).toString();
 
         HttpRequest req = HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
                 .header("Authorization", "Bearer " + huggingFaceApiKey)
                 .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip")
                 .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
                 .build();
 
-        HttpResponse<String> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-            // HF returns nested arrays [[...]]
-            JsonNode root = mapper.readTree(resp.body());
-            JsonNode arr = root.isArray() && root.get(0).isArray() ? root.get(0) : root;
-            List<Double> vals = new ArrayList<>();
-            for (JsonNode n : arr) vals.add(n.asDouble());
-            double[] vec = new double[vals.size()];
-            for (int i = 0; i < vals.size(); i++) vec[i] = vals.get(i);
-            return l2Normalize(vec);
-        } else {
-            log.warn("HF embeddings HTTP {}: {}", resp.statusCode(), resp.body());
+        HttpResponse<InputStream> resp = httpClient.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = decodedBody(resp)) {
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                // HF returns nested arrays [[...]] or a flat [...]; take the innermost first row
+                try (JsonParser p = mapper.getFactory().createParser(in)) {
+                    JsonToken t = p.nextToken();
+                    if (t != JsonToken.START_ARRAY) return null;
+                    while ((t = p.nextToken()) == JsonToken.START_ARRAY) {
+                        // descend
+                    }
+                    if (t == null || !t.isNumeric()) return null;
+                    return l2Normalize(readFloatArray(p));
+                }
+            } else {
+                log.warn("HF embeddings HTTP {}: {}", resp.statusCode(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
         }
         return null;
     }
 
-    private static double[] l2Normalize(double[] v) {
+    private static InputStream decodedBody(HttpResponse<InputStream> resp) throws IOException {
+        boolean gzip = resp.headers().firstValue("Content-Encoding")
+                .map(v -> v.toLowerCase().contains("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(resp.body()) : resp.body();
+    }
+
+    /**
+     * Read numbers until the end of the current array into the pooled buffer and return an exact-size copy.
+     * If the parser is positioned on START_ARRAY the first number is read next; if it is already on a
+     * number, that number is taken as the first element.
+     */
+    private static float[] readFloatArray(JsonParser p) throws IOException {
+        float[] buf = DECODE_BUFFER.get();
+        int n = 0;
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_ARRAY) {
+            t = p.nextToken();
+        }
+        while (t != null && t != JsonToken.END_ARRAY) {
+            if (t.isNumeric()) {
+                if (n == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    DECODE_BUFFER.set(buf);
+                }
+                buf[n++] = p.getFloatValue();
+            }
+            t = p.nextToken();
+        }
+        return Arrays.copyOf(buf, n);
+    }
+
+    private static float[] l2Normalize(float[] v) {
         double n = 0.0;
-        for (double x : v) n += x * x;
+        for (float x : v) n += (double) x * x;
         n = Math.sqrt(n) + 1e-9;
-        for (int i = 0; i < v.length; i++) v[i] /= n;
+        for (int i = 0; i < v.length; i++) v[i] = (float) (v[i] / n);
         return v;
     }
 }
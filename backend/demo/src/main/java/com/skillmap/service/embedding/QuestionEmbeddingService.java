@@ -0,0 +1,106 @@
+package com.skillmap.service.embedding;
+
+import com.skillmap.model.entity.Question;
+import com.skillmap.model.entity.QuestionEmbedding;
+import com.skillmap.repository.QuestionEmbeddingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Stores one reference vector per text question and embedding model, so scoring an
+ * answer only has to embed the answer side.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionEmbeddingService {
+
+    private final EmbeddingService embeddingService;
+    private final QuestionEmbeddingRepository questionEmbeddingRepository;
+
+    /**
+     * Text an answer is compared against: the context hint, or the question itself.
+     */
+    public static String referenceText(Question question) {
+        String expected = question.getContextHint();
+        if (expected == null || expected.isBlank()) {
+            expected = question.getQuestionText();
+        }
+        return expected;
+    }
+
+    /**
+     * Compute and store the reference vector for the active model if it is missing or stale.
+     * Called when questions are created, updated or loaded; failures only log.
+     */
+    public void refreshReferenceVector(Question question) {
+        try {
+            computeReferenceVector(question);
+        } catch (Exception e) {
+            log.warn("Failed to precompute reference vector for question {}: {}", question.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Similarity of an answer to the question's stored reference vector.
+     * Falls back to embedding both sides when no reference vector can be produced.
+     */
+    public Double similarityToReference(Question question, String answer) {
+        String model = embeddingService.activeModel();
+        if (model == null) {
+            return null;
+        }
+        QuestionEmbedding reference = computeReferenceVector(question);
+        if (reference == null) {
+            return embeddingService.computeCosineSimilarity(referenceText(question), answer);
+        }
+        return embeddingService.computeCosineSimilarity(reference.getVectorArray(), model, answer);
+    }
+
+    private QuestionEmbedding computeReferenceVector(Question question) {
+        if (question.getId() == null || !"text".equalsIgnoreCase(question.getQuestionType())) {
+            return null;
+        }
+        String model = embeddingService.activeModel();
+        String text = referenceText(question);
+        if (model == null || text == null || text.isBlank()) {
+            return null;
+        }
+
+        String hash = sha256(text);
+        Optional<QuestionEmbedding> existing =
+            questionEmbeddingRepository.findByQuestionIdAndEmbeddingModel(question.getId(), model);
+        if (existing.isPresent() && hash.equals(existing.get().getSourceHash())) {
+            return existing.get();
+        }
+
+        float[] vector = embeddingService.embed(text, model);
+        if (vector == null) {
+            return null;
+        }
+
+        QuestionEmbedding embedding = existing.orElseGet(QuestionEmbedding::new);
+        embedding.setQuestion(question);
+        embedding.setEmbeddingModel(model);
+        embedding.setSourceHash(hash);
+        embedding.setVectorArray(vector);
+        QuestionEmbedding saved = questionEmbeddingRepository.save(embedding);
+        log.debug("Stored {}-dim reference vector for question {} ({})", vector.length, question.getId(), model);
+        return saved;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,11 +1,7 @@
 package com.skillmap.service.engine;
 
 import com.skillmap.model.entity.AssessmentSession;
-import com.skillmap.model.entity.Question;
-import com.skillmap.model.entity.Response;
 import com.skillmap.repository.AssessmentSessionRepository;
-import com.skillmap.repository.QuestionRepository;
-import com.skillmap.repository.ResponseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -18,73 +14,45 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AdaptiveQuestionEngine {
 
-    private final QuestionRepository questionRepository;
-    private final ResponseRepository responseRepository;
+    private final QuestionCatalogService questionCatalogService;
     private final AssessmentSessionRepository sessionRepository;
     private final SkillInferenceEngine skillInferenceEngine;
     private final SkillGraphService skillGraphService;
+    private final SessionStateService sessionStateService;
+    private final IrtSelectionService irtSelectionService;
 
-    // Cache for questions to avoid repeated database calls
-    private volatile List<Question> cachedQuestions = null;
-    private volatile long lastCacheUpdate = 0;
-    private static final long CACHE_TTL_MS = 5 * 60 * 1000; // 5 minutes TTL
+    /**
+     * All questions in the current catalog snapshot.
+     */
+    private List<CatalogQuestion> getCatalogQuestions() {
+        return questionCatalogService.current().getQuestions();
+    }
 
     /**
-     * Get cached questions, refreshing if necessary
+     * Questions whose skill matches the target role (may be empty). Shared by selection,
+     * recommendations and progress so all three agree on what "the role's questions" are.
      */
-    private List<Question> getCachedQuestions() {
-        long now = System.currentTimeMillis();
-        if (cachedQuestions == null || (now - lastCacheUpdate) > CACHE_TTL_MS) {
-            synchronized (this) {
-                if (cachedQuestions == null || (now - lastCacheUpdate) > CACHE_TTL_MS) {
-                    log.debug("Refreshing questions cache");
-                    cachedQuestions = questionRepository.findAll();
-                    lastCacheUpdate = now;
-                }
-            }
-        }
-        return cachedQuestions;
+    private List<CatalogQuestion> questionsForRole(String targetRole) {
+        return questionCatalogService.current().forRole(targetRole);
     }
 
     /**
-     * Force refresh of questions cache (useful if questions are updated)
+     * Force a rebuild of the question catalog, e.g. after questions were changed outside the application.
+     * Changes made through JPA trigger the rebuild on their own.
      */
     public void refreshQuestionsCache() {
-        synchronized (this) {
-            cachedQuestions = null;
-            lastCacheUpdate = 0;
-        }
+        questionCatalogService.invalidate();
     }
 
-    public Question selectNextQuestion(AssessmentSession session) {
+    public CatalogQuestion selectNextQuestion(AssessmentSession session) {
         log.info("Selecting next question for session: {}", session.getId());
 
         // Get all questions from cache
-        List<Question> availableQuestions = getCachedQuestions();
+        List<CatalogQuestion> availableQuestions = getCatalogQuestions();
 
         // Filter by target role if specified; be forgiving and fall back on empty
         if (session.getTargetRole() != null) {
-            String role = session.getTargetRole().toLowerCase();
-            List<Question> roleFiltered = availableQuestions.stream()
-                .filter(q -> {
-                    boolean match = false;
-                    if (q.getSkill().getCategory() != null) {
-                        match = q.getSkill().getCategory().name().toLowerCase().contains(role);
-                    }
-                    if (!match && q.getSkill().getSkillCode() != null) {
-                        match = q.getSkill().getSkillCode().toLowerCase().contains(role);
-                    }
-                    if (!match && q.getSkill().getDisplayName() != null) {
-                        match = q.getSkill().getDisplayName().toLowerCase().contains(role);
-                    }
-                    // Common mapping: software engineer/developer -> Programming category
-                    if (!match && (role.contains("engineer") || role.contains("developer"))) {
-                        match = q.getSkill().getCategory() != null && q.getSkill().getCategory().name().equalsIgnoreCase("Programming");
-                    }
-                    return match;
-                })
-                .collect(Collectors.toList());
-
+            List<CatalogQuestion> roleFiltered = questionsForRole(session.getTargetRole());
             if (!roleFiltered.isEmpty()) {
                 availableQuestions = roleFiltered;
             }
@@ -92,10 +60,10 @@ public class AdaptiveQuestionEngine {
         }
 
         // Filter out already answered questions
-        List<Long> answeredQuestionIds = responseRepository.findAnsweredQuestionIds(session.getId());
+        AssessmentSessionState state = sessionStateService.get(session);
 
-        List<Question> unansweredQuestions = availableQuestions.stream()
-            .filter(q -> !answeredQuestionIds.contains(q.getId()))
+        List<CatalogQuestion> unansweredQuestions = availableQuestions.stream()
+            .filter(q -> !state.isAnswered(q.id()))
             .collect(Collectors.toList());
 
         if (unansweredQuestions.isEmpty()) {
@@ -103,8 +71,13 @@ public class AdaptiveQuestionEngine {
             return null;
         }
 
+        // IRT mode: maximum-information item from the first question on
+        if (irtSelectionService.isEnabled()) {
+            return irtSelectionService.selectNext(unansweredQuestions, state);
+        }
+
         // For performance, use simpler selection for first few questions, then adaptive
-        int questionsAnswered = answeredQuestionIds.size();
+        int questionsAnswered = state.getAnsweredCount();
         if (questionsAnswered < 3) {
             // Simple random selection for first 3 questions to get started quickly
             return unansweredQuestions.get(new Random().nextInt(Math.min(unansweredQuestions.size(), 10)));
@@ -112,12 +85,12 @@ public class AdaptiveQuestionEngine {
 
         // Use adaptive selection algorithm for later questions
         try {
-            return selectAdaptiveQuestion(unansweredQuestions, session);
+            return selectAdaptiveQuestion(unansweredQuestions, session, state);
         } catch (Exception e) {
             log.warn("Adaptive selection failed for session {}: {}, falling back to MCQ questions", session.getId(), e.getMessage());
             // Fallback to MCQ questions if adaptive selection fails
-            List<Question> mcqQuestions = unansweredQuestions.stream()
-                .filter(q -> "mcq".equalsIgnoreCase(q.getQuestionType()) || "choice".equalsIgnoreCase(q.getQuestionType()))
+            List<CatalogQuestion> mcqQuestions = unansweredQuestions.stream()
+                .filter(q -> "mcq".equalsIgnoreCase(q.questionType()) || "choice".equalsIgnoreCase(q.questionType()))
                 .collect(Collectors.toList());
 
             if (!mcqQuestions.isEmpty()) {
@@ -129,45 +102,88 @@ public class AdaptiveQuestionEngine {
         }
     }
 
-    private Question selectAdaptiveQuestion(List<Question> questions, AssessmentSession session) {
-        // Calculate information gain for each question
-        Map<Question, Double> questionScores = new HashMap<>();
+    private CatalogQuestion selectAdaptiveQuestion(List<CatalogQuestion> questions, AssessmentSession session,
+                                            AssessmentSessionState state) {
+        // Select question with highest information gain
+        List<CatalogQuestion> best = topScoredQuestions(questions, scoringContext(session, state), 1);
+        return best.isEmpty() ? questions.get(0) : best.get(0); // Fallback to first question
+    }
+
+    /**
+     * Everything candidate scoring reads, loaded once per selection.
+     */
+    private ScoringContext scoringContext(AssessmentSession session, AssessmentSessionState state) {
+        return new ScoringContext(skillInferenceEngine.getBeliefSnapshot(session),
+            state.getRecentQuestionTypes(), state.getRecentTopics());
+    }
+
+    private record ScoringContext(BeliefSnapshot beliefs, List<String> recentTypes, List<String> recentTopics) {
+    }
+
+    /**
+     * The k highest-scoring questions, best first; ties keep candidate order. Scores are computed once
+     * per candidate and ranked with a bounded min-heap instead of a full sort.
+     */
+    private List<CatalogQuestion> topScoredQuestions(List<CatalogQuestion> questions, ScoringContext context, int k) {
+        int n = questions.size();
+        if (k <= 0 || n == 0) {
+            return List.of();
+        }
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = calculateQuestionScore(questions.get(i), context);
+        }
 
-        for (Question question : questions) {
-            double score = calculateQuestionScore(question, session);
-            questionScores.put(question, score);
+        // Min-heap of candidate indexes: the weakest kept candidate (lowest score, later index) on top
+        Comparator<Integer> weakestFirst = (i, j) -> scores[i] != scores[j]
+            ? Double.compare(scores[i], scores[j])
+            : Integer.compare(j, i);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(k, n) + 1, weakestFirst);
+        for (int i = 0; i < n; i++) {
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (weakestFirst.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
+            }
         }
 
-        // Select question with highest information gain
-        return questionScores.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(questions.get(0)); // Fallback to first question
+        CatalogQuestion[] top = new CatalogQuestion[heap.size()];
+        for (int slot = top.length - 1; slot >= 0; slot--) {
+            top[slot] = questions.get(heap.poll());
+        }
+        return Arrays.asList(top);
     }
 
-    private double calculateQuestionScore(Question question, AssessmentSession session) {
+    private double calculateQuestionScore(CatalogQuestion question, ScoringContext context) {
         double score = 0.0;
 
         try {
-            if (question.getSkill() == null) {
-                log.warn("Question {} has null skill, returning neutral score", question.getId());
+            if (question.skill() == null) {
+                log.warn("Question {} has null skill, returning neutral score", question.id());
                 return 0.5;
             }
 
-            String skillCode = question.getSkill().getSkillCode();
+            String skillCode = question.skillCode();
             if (skillCode == null || skillCode.trim().isEmpty()) {
-                log.warn("Question {} has null or empty skillCode, returning neutral score", question.getId());
+                log.warn("Question {} has null or empty skillCode, returning neutral score", question.id());
                 return 0.5;
             }
 
-            double currentBelief = skillInferenceEngine.getSkillBelief(session, skillCode);
+            int ordinal = context.beliefs().ordinal(skillCode);
+            if (ordinal < 0) {
+                log.warn("Question {} has skill {} outside the skill graph, returning neutral score", question.id(), skillCode);
+                return 0.5;
+            }
+
+            double currentBelief = context.beliefs().belief(ordinal);
 
             // Score based on uncertainty (questions about uncertain skills are more valuable)
             double uncertainty = Math.abs(currentBelief - 0.5) * 2; // 0 to 1 scale
             score += uncertainty * 0.4;
 
             // Score based on skill importance (prerequisites are more important)
-            int skillLevel = skillGraphService.getSkillLevel(skillCode);
+            int skillLevel = context.beliefs().level(ordinal);
             if (skillLevel > 0) {
                 score += (1.0 / skillLevel) * 0.3; // Higher level skills get lower priority initially
             } else {
@@ -175,59 +191,61 @@ public class AdaptiveQuestionEngine {
             }
 
             // Score based on question difficulty (prefer medium difficulty)
-            double difficulty = question.getDifficultyLevel() != null ? question.getDifficultyLevel() : 0.5;
+            double difficulty = question.difficultyLevel() != null ? question.difficultyLevel() : 0.5;
             double difficultyScore = 1.0 - Math.abs(difficulty - 0.5) * 2; // Peak at 0.5
             score += difficultyScore * 0.2;
 
             // Score based on question type diversity (prefer variety)
-            double typeDiversity = calculateTypeDiversity(question, session);
+            double typeDiversity = calculateTypeDiversity(question, context.recentTypes(), context.recentTopics());
             score += typeDiversity * 0.1;
         } catch (Exception e) {
             // If any calculation fails, return a neutral score to avoid breaking the selection
-            log.warn("Error calculating question score for question {}: {}", question.getId(), e.getMessage());
+            log.warn("Error calculating question score for question {}: {}", question.id(), e.getMessage());
             score = 0.5;
         }
 
         return score;
     }
 
-    private double calculateTypeDiversity(Question question, AssessmentSession session) {
-        // Get recently asked question types
-        List<Response> recentResponses = responseRepository.findBySessionId(session.getId());
-
-        if (recentResponses.size() < 3) {
+    private double calculateTypeDiversity(CatalogQuestion question, List<String> recentTypes, List<String> recentTopics) {
+        // Recently asked question types and topics, kept in the session state
+        if (recentTypes.size() < 3) {
             return 0.5; // Neutral score for early questions
         }
 
-        List<String> recentTypes = recentResponses.subList(Math.max(0, recentResponses.size() - 3), recentResponses.size())
-            .stream()
-            .map(response -> response.getQuestion().getQuestionText()) // Using questionText as proxy for type
-            .collect(Collectors.toList());
-
-        String currentType = question.getQuestionText();
+        String currentType = question.questionType() != null ? question.questionType() : "";
+        String currentTopic = question.topic() != null ? question.topic() : "";
 
-        // Penalize if same type as last 2 questions
-        long sameTypeCount = recentTypes.stream()
-            .filter(type -> type.equals(currentType))
-            .count();
+        // Penalize if same type and topic as 2 of the last 3 questions
+        long sameTypeCount = 0;
+        for (int i = recentTypes.size() - 3; i < recentTypes.size(); i++) {
+            if (recentTypes.get(i).equals(currentType) && recentTopics.get(i).equals(currentTopic)) {
+                sameTypeCount++;
+            }
+        }
 
         return sameTypeCount > 1 ? 0.0 : 0.5;
     }
 
     public boolean shouldContinueAssessment(AssessmentSession session) {
         // Check stopping criteria
-        List<Response> responses = responseRepository.findBySessionId(session.getId());
+        AssessmentSessionState state = sessionStateService.get(session);
 
         // Minimum number of questions
-        if (responses.size() < 5) {
+        if (state.getAnsweredCount() < 5) {
             return true;
         }
 
         // Maximum number of questions
-        if (responses.size() >= 20) {
+        if (state.getAnsweredCount() >= 20) {
             return false;
         }
 
+        // IRT mode: continue until the ability estimate is precise enough
+        if (irtSelectionService.isEnabled()) {
+            return !irtSelectionService.isPrecise(state);
+        }
+
         // Check confidence levels using session-specific beliefs
         Map<String, Double> skillBeliefs = skillInferenceEngine.getSkillBeliefs(session);
         long highConfidenceSkills = skillBeliefs.values().stream()
@@ -241,9 +259,7 @@ public class AdaptiveQuestionEngine {
         }
 
         // Check time spent
-        int totalTime = responses.stream()
-            .mapToInt(response -> response.getTotalTimeSeconds() != null ? response.getTotalTimeSeconds() : 0)
-            .sum();
+        long totalTime = state.getTotalTimeSeconds();
 
         // Stop if total time exceeds reasonable limit (30 minutes)
         if (totalTime > 1800) {
@@ -253,56 +269,30 @@ public class AdaptiveQuestionEngine {
         return false; // Default to stopping
     }
 
-    public List<Question> getRecommendedQuestions(AssessmentSession session, int count) {
-        List<Question> availableQuestions = getCachedQuestions();
+    public List<CatalogQuestion> getRecommendedQuestions(AssessmentSession session, int count) {
+        List<CatalogQuestion> availableQuestions = getCatalogQuestions();
 
         // Filter by target role if specified
         if (session.getTargetRole() != null) {
-            availableQuestions = availableQuestions.stream()
-                .filter(q -> q.getSkill().getCategory() != null &&
-                           q.getSkill().getCategory().name().toLowerCase().contains(session.getTargetRole().toLowerCase()))
-                .collect(Collectors.toList());
+            availableQuestions = questionsForRole(session.getTargetRole());
         }
 
-        // Sort by adaptive score
-        return availableQuestions.stream()
-            .sorted((q1, q2) -> Double.compare(
-                calculateQuestionScore(q2, session),
-                calculateQuestionScore(q1, session)
-            ))
-            .limit(count)
-            .collect(Collectors.toList());
+        // Highest adaptive scores first
+        AssessmentSessionState state = sessionStateService.get(session);
+        return topScoredQuestions(availableQuestions, scoringContext(session, state), count);
     }
 
     public Map<String, Object> getAssessmentProgress(AssessmentSession session) {
-        List<Response> responses = responseRepository.findBySessionId(session.getId());
+        AssessmentSessionState state = sessionStateService.get(session);
         Map<String, Double> skillBeliefs = skillInferenceEngine.getSkillBeliefs(session);
 
         Map<String, Object> progress = new HashMap<>();
-        progress.put("questionsAnswered", responses.size());
+        progress.put("questionsAnswered", state.getAnsweredCount());
 
         // Count total questions for the target role (fallback if none)
-        List<Question> totalQuestions = getCachedQuestions();
+        List<CatalogQuestion> totalQuestions = getCatalogQuestions();
         if (session.getTargetRole() != null) {
-            String role = session.getTargetRole().toLowerCase();
-            List<Question> roleFiltered = totalQuestions.stream()
-                .filter(q -> {
-                    boolean match = false;
-                    if (q.getSkill().getCategory() != null) {
-                        match = q.getSkill().getCategory().name().toLowerCase().contains(role);
-                    }
-                    if (!match && q.getSkill().getSkillCode() != null) {
-                        match = q.getSkill().getSkillCode().toLowerCase().contains(role);
-                    }
-                    if (!match && q.getSkill().getDisplayName() != null) {
-                        match = q.getSkill().getDisplayName().toLowerCase().contains(role);
-                    }
-                    if (!match && (role.contains("engineer") || role.contains("developer"))) {
-                        match = q.getSkill().getCategory() != null && q.getSkill().getCategory().name().equalsIgnoreCase("Programming");
-                    }
-                    return match;
-                })
-                .collect(Collectors.toList());
+            List<CatalogQuestion> roleFiltered = questionsForRole(session.getTargetRole());
             if (!roleFiltered.isEmpty()) {
                 totalQuestions = roleFiltered;
             }
@@ -0,0 +1,188 @@
+package com.skillmap.service.engine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of one active assessment session, kept in step with every stored answer
+ * so question selection and stopping checks do not have to re-read the responses table.
+ */
+public class AssessmentSessionState {
+
+    static final int RECENT_WINDOW = 5;
+
+    private final Long sessionId;
+    private final BitSet answeredQuestions = new BitSet();
+    private final Set<Long> answeredOverflow = new HashSet<>(); // ids beyond int range, practically unused
+    private final ArrayDeque<String> recentQuestionTypes = new ArrayDeque<>(RECENT_WINDOW);
+    private final ArrayDeque<String> recentTopics = new ArrayDeque<>(RECENT_WINDOW);
+    private final List<ItemObservation> observations = new ArrayList<>();
+    private int answeredCount;
+    private long totalTimeSeconds;
+    private volatile Map<String, Double> beliefs;
+    private final AtomicLong beliefVersion = new AtomicLong();
+    private volatile long lastAccessMillis = System.currentTimeMillis();
+    private long version; // bumped on every answer and belief update; guards the prefetched next question
+    private volatile PrefetchedNext prefetchedNext;
+    private volatile ResumePriors resumePriors;
+
+    AssessmentSessionState(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Record an answered question. Idempotent per question, so replays during hydration are harmless.
+     */
+    synchronized boolean recordAnswer(Long questionId, String questionType, String topic, Integer timeSeconds,
+                                      String skillCode, double score, IrtModel.ItemParameters item) {
+        if (questionId == null || isAnswered(questionId)) {
+            return false;
+        }
+        if (questionId >= 0 && questionId <= Integer.MAX_VALUE) {
+            answeredQuestions.set(questionId.intValue());
+        } else {
+            answeredOverflow.add(questionId);
+        }
+        answeredCount++;
+        version++;
+        prefetchedNext = null;
+        totalTimeSeconds += timeSeconds != null ? timeSeconds : 0;
+        push(recentQuestionTypes, questionType);
+        push(recentTopics, topic);
+        observations.add(new ItemObservation(questionId, skillCode, score, item));
+        return true;
+    }
+
+    public synchronized boolean isAnswered(Long questionId) {
+        if (questionId == null) return false;
+        if (questionId >= 0 && questionId <= Integer.MAX_VALUE) {
+            return answeredQuestions.get(questionId.intValue());
+        }
+        return answeredOverflow.contains(questionId);
+    }
+
+    public synchronized int getAnsweredCount() {
+        return answeredCount;
+    }
+
+    public synchronized long getTotalTimeSeconds() {
+        return totalTimeSeconds;
+    }
+
+    /** Most recent last. */
+    public synchronized List<String> getRecentQuestionTypes() {
+        return new ArrayList<>(recentQuestionTypes);
+    }
+
+    /** Most recent last. */
+    public synchronized List<String> getRecentTopics() {
+        return new ArrayList<>(recentTopics);
+    }
+
+    /** Scored answers in answer order, used for ability estimation. */
+    public synchronized List<ItemObservation> getObservations() {
+        return new ArrayList<>(observations);
+    }
+
+    /**
+     * Current skill beliefs, or null if they have not been computed since the last update.
+     */
+    public Map<String, Double> getBeliefs() {
+        return beliefs;
+    }
+
+    long getBeliefVersion() {
+        return beliefVersion.get();
+    }
+
+    /**
+     * Store beliefs computed when the belief version was {@code computedAtVersion}; ignored if an
+     * update invalidated them in the meantime.
+     */
+    synchronized void setBeliefs(Map<String, Double> beliefs, long computedAtVersion) {
+        if (beliefVersion.get() == computedAtVersion) {
+            this.beliefs = beliefs == null ? null : Collections.unmodifiableMap(beliefs);
+        }
+    }
+
+    synchronized void invalidateBeliefs() {
+        beliefVersion.incrementAndGet();
+        this.beliefs = null;
+        version++;
+        prefetchedNext = null;
+    }
+
+    /**
+     * Resume-based priors, or null if they have not been loaded for this session yet.
+     */
+    ResumePriors getResumePriors() {
+        return resumePriors;
+    }
+
+    void setResumePriors(ResumePriors resumePriors) {
+        this.resumePriors = resumePriors;
+    }
+
+    synchronized void clearPrefetchedNext() {
+        version++;
+        prefetchedNext = null;
+    }
+
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Precomputed response for the next-question endpoint, or null if none is current.
+     */
+    Object getPrefetchedNext() {
+        PrefetchedNext next = prefetchedNext;
+        return next != null ? next.body() : null;
+    }
+
+    /**
+     * Store a next-question response computed at {@code computedAtVersion}; ignored if an answer or
+     * belief update arrived in the meantime.
+     */
+    synchronized void setPrefetchedNext(Object body, long computedAtVersion) {
+        if (version == computedAtVersion && body != null) {
+            prefetchedNext = new PrefetchedNext(body);
+        }
+    }
+
+    void touch() {
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+
+    /**
+     * One scored answer: the question, its skill (may be null), the answer score in [0, 1]
+     * and the item's IRT parameters at the time it was answered.
+     */
+    public record ItemObservation(Long questionId, String skillCode, double score, IrtModel.ItemParameters item) {
+    }
+
+    private record PrefetchedNext(Object body) {
+    }
+
+    private static void push(ArrayDeque<String> window, String value) {
+        if (window.size() == RECENT_WINDOW) {
+            window.pollFirst();
+        }
+        window.addLast(value != null ? value : "");
+    }
+}
@@ -0,0 +1,141 @@
+package com.skillmap.service.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Skill belief state of a session as a left fold over its scored answers. The update rules are the
+ * ones {@link SkillInferenceEngine#updateBeliefsFromResponse} applies to the stored skill assessments,
+ * so folding a session's answers in order reproduces its assessment rows, and a changed rule can be
+ * replayed over the full history.
+ */
+public final class BeliefFold {
+
+    /**
+     * Version of the update rules below. Bump it when they change so snapshots folded under the old
+     * rules are ignored and sessions can be replayed.
+     */
+    public static final int MODEL_VERSION = 1;
+
+    static final double INITIAL_CONFIDENCE = 0.5;
+    static final double DIRECT_EVIDENCE_WEIGHT = 0.5;
+    static final double CONFIDENCE_STEP = 0.1;
+    static final double PROPAGATION_STRENGTH = 0.5;
+    static final double PROPAGATED_EVIDENCE_WEIGHT = 0.3;
+
+    private BeliefFold() {
+    }
+
+    /**
+     * One answer as the fold sees it: the response, the skill its question tests and its score in [0, 1].
+     */
+    public record Event(Long responseId, String skillCode, double score) {
+    }
+
+    /**
+     * Level and confidence of every skill the session has touched so far, plus the fold position.
+     * Skills that were never assessed are absent, so the state is O(skills touched).
+     */
+    public static final class State {
+        private final Map<String, double[]> skills; // skill code -> {level, confidence}
+        private int eventCount;
+        private Long lastResponseId;
+
+        public State() {
+            this(new LinkedHashMap<>(), 0, null);
+        }
+
+        State(Map<String, double[]> skills, int eventCount, Long lastResponseId) {
+            this.skills = skills;
+            this.eventCount = eventCount;
+            this.lastResponseId = lastResponseId;
+        }
+
+        public Map<String, double[]> getSkills() {
+            return Collections.unmodifiableMap(skills);
+        }
+
+        public Double level(String skillCode) {
+            double[] entry = skills.get(skillCode);
+            return entry != null ? entry[0] : null;
+        }
+
+        public Double confidence(String skillCode) {
+            double[] entry = skills.get(skillCode);
+            return entry != null ? entry[1] : null;
+        }
+
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        public Long getLastResponseId() {
+            return lastResponseId;
+        }
+    }
+
+    /**
+     * Apply one answer: update the answered skill, then propagate to correlated skills that were
+     * already assessed before this answer.
+     */
+    public static void apply(State state, Event event, SkillCorrelationMatrix correlations) {
+        state.eventCount++;
+        state.lastResponseId = event.responseId();
+        if (event.skillCode() == null) {
+            return;
+        }
+
+        double[] direct = state.skills.get(event.skillCode());
+        boolean existed = direct != null;
+        if (!existed) {
+            direct = new double[]{event.score(), INITIAL_CONFIDENCE};
+        } else {
+            double level = directLevel(direct[0], direct[1], event.score());
+            direct[1] = directConfidence(direct[1]);
+            direct[0] = level;
+        }
+
+        int source = correlations.getOrdinals().ordinal(event.skillCode());
+        if (source >= 0) {
+            for (int k = correlations.rowStart(source), end = correlations.rowEnd(source); k < end; k++) {
+                String target = correlations.getOrdinals().code(correlations.col(k));
+                double[] related = target.equals(event.skillCode()) ? (existed ? direct : null) : state.skills.get(target);
+                if (related != null) {
+                    related[0] = propagatedLevel(related[0], related[1], event.score(), correlations.weight(k));
+                    related[0] = stored(related[0]);
+                }
+            }
+        }
+
+        // Assessment columns are DECIMAL(3,2); round as the database does so replays match stored rows
+        direct[0] = stored(direct[0]);
+        direct[1] = stored(direct[1]);
+        state.skills.put(event.skillCode(), direct);
+    }
+
+    static double directLevel(double level, double confidence, double score) {
+        return (level * confidence + score * DIRECT_EVIDENCE_WEIGHT) / (confidence + DIRECT_EVIDENCE_WEIGHT);
+    }
+
+    static double directConfidence(double confidence) {
+        return Math.min(confidence + CONFIDENCE_STEP, 1.0);
+    }
+
+    /**
+     * Propagation strength of a correlation, also recorded as the evidence weight.
+     */
+    static double propagationStrength(double correlation) {
+        return correlation * PROPAGATION_STRENGTH;
+    }
+
+    static double propagatedLevel(double level, double confidence, double score, double correlation) {
+        double propagatedEvidence = score * propagationStrength(correlation);
+        return (level * confidence + propagatedEvidence * PROPAGATED_EVIDENCE_WEIGHT) /
+            (confidence + PROPAGATED_EVIDENCE_WEIGHT);
+    }
+
+    private static double stored(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,210 @@
+package com.skillmap.service.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillmap.config.SessionSerialExecutor;
+import com.skillmap.model.entity.BeliefStateSnapshot;
+import com.skillmap.model.entity.SkillAssessment;
+import com.skillmap.repository.AssessmentSessionRepository;
+import com.skillmap.repository.BeliefStateSnapshotRepository;
+import com.skillmap.repository.ResponseRepository;
+import com.skillmap.repository.SkillAssessmentRepository;
+import com.skillmap.repository.SkillRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Belief state of a session as a {@link BeliefFold} over its answers, with a snapshot of the folded
+ * state stored every few answers. The skill assessment rows remain the only projection readers use;
+ * {@link #replay(Long)} rewrites them from the full history. When enabled, a batch job replays every
+ * session without a snapshot under the current {@link BeliefFold#MODEL_VERSION} after startup, so
+ * changed update rules reach the stored rows once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BeliefProjectionService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, double[]>> SKILL_STATES_TYPE = new TypeReference<>() {};
+
+    private final ResponseRepository responseRepository;
+    private final BeliefStateSnapshotRepository snapshotRepository;
+    private final SkillAssessmentRepository skillAssessmentRepository;
+    private final AssessmentSessionRepository sessionRepository;
+    private final SkillRepository skillRepository;
+    private final SkillInferenceEngine skillInferenceEngine;
+    private final SessionStateService sessionStateService;
+    private final SessionSerialExecutor beliefSessionExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${assessment.beliefs.snapshot-interval:10}")
+    private int snapshotInterval;
+
+    @Value("${assessment.beliefs.replay-on-startup:false}")
+    private boolean replayOnStartup;
+
+    @Value("${assessment.beliefs.replay-page-size:100}")
+    private int replayPageSize;
+
+    /**
+     * Store a new snapshot once {@code snapshotInterval} answers have been folded since the last one.
+     * Run after a belief update, on the session's serial executor.
+     */
+    public void snapshotIfDue(Long sessionId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Optional<BeliefStateSnapshot> latest = latestSnapshot(sessionId);
+            int snapshotEvents = latest.map(BeliefStateSnapshot::getEventCount).orElse(0);
+            BeliefFold.State state = foldTail(sessionId, latest.map(this::decode).orElseGet(BeliefFold.State::new));
+            if (state.getEventCount() - snapshotEvents >= Math.max(1, snapshotInterval)) {
+                saveSnapshot(sessionId, state);
+            }
+        });
+    }
+
+    /**
+     * Refold the session from its first answer under the current rules and write the result to its
+     * skill assessment rows. Must run on the session's serial executor, see {@link #replayOutdated()}.
+     */
+    public BeliefFold.State replay(Long sessionId) {
+        BeliefFold.State state = transactionTemplate.execute(status -> {
+            BeliefFold.State folded = foldTail(sessionId, new BeliefFold.State());
+
+            Map<String, SkillAssessment> assessments = new HashMap<>();
+            for (SkillAssessment existing : skillAssessmentRepository.findBySessionIdWithSkill(sessionId)) {
+                assessments.put(existing.getSkill().getSkillCode(), existing);
+            }
+            List<SkillAssessment> changed = new ArrayList<>();
+            folded.getSkills().forEach((skillCode, values) -> {
+                SkillAssessment assessment = assessments.get(skillCode);
+                if (assessment == null) {
+                    // Answered skill without a row, e.g. lost to a concurrent update before serialisation
+                    assessment = skillRepository.findBySkillCode(skillCode).map(skill -> {
+                        SkillAssessment created = new SkillAssessment();
+                        created.setSession(sessionRepository.getReferenceById(sessionId));
+                        created.setSkill(skill);
+                        return created;
+                    }).orElse(null);
+                    if (assessment == null) {
+                        return;
+                    }
+                }
+                assessment.setAssessedLevel(values[0]);
+                assessment.setConfidenceScore(values[1]);
+                changed.add(assessment);
+            });
+            skillAssessmentRepository.saveAll(changed);
+            saveSnapshot(sessionId, folded);
+            return folded;
+        });
+        sessionStateService.invalidateBeliefs(sessionId);
+        log.info("Replayed {} answers for session {} under belief model {}",
+            state.getEventCount(), sessionId, BeliefFold.MODEL_VERSION);
+        return state;
+    }
+
+    /**
+     * Start the replay of outdated sessions on a background thread once the application is ready, so
+     * startup never waits on it. Off by default; see {@link #replayOutdated()}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplay() {
+        if (replayOnStartup) {
+            Thread t = new Thread(this::replayOutdated, "belief-replay");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /**
+     * Replay the sessions whose answers have not been folded under the current model version: those
+     * answered before snapshots existed, or whose latest snapshot predates a rule change. Sessions are
+     * read a page at a time and each replay is queued on its session's serial executor, so it never
+     * interleaves with a live belief update; the next page is read once the current one has finished.
+     */
+    public void replayOutdated() {
+        int pageSize = Math.max(1, replayPageSize);
+        int replayed = 0;
+        long afterId = 0L;
+        List<Long> page;
+        do {
+            page = responseRepository.findSessionIdsWithoutSnapshot(BeliefFold.MODEL_VERSION, afterId,
+                PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            try {
+                CompletableFuture.allOf(page.stream()
+                    .map(sessionId -> beliefSessionExecutor.submit(sessionId, () -> replay(sessionId)))
+                    .toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                // Failures are logged and counted by the executor; carry on with the next page
+                log.warn("Belief replay failed for a session after id {}: {}", afterId, e.getMessage());
+            }
+            replayed += page.size();
+            afterId = page.get(page.size() - 1);
+        } while (page.size() == pageSize);
+        if (replayed > 0) {
+            log.info("Replayed beliefs of {} sessions under belief model {}", replayed, BeliefFold.MODEL_VERSION);
+        }
+    }
+
+    private Optional<BeliefStateSnapshot> latestSnapshot(Long sessionId) {
+        return snapshotRepository.findFirstBySessionIdAndModelVersionOrderByEventCountDesc(sessionId,
+            BeliefFold.MODEL_VERSION);
+    }
+
+    private BeliefFold.State foldTail(Long sessionId, BeliefFold.State state) {
+        SkillCorrelationMatrix correlations = skillInferenceEngine.getCorrelationMatrix();
+        Long after = state.getLastResponseId() != null ? state.getLastResponseId() : 0L;
+        for (Object[] row : responseRepository.findBeliefEventsBySessionId(sessionId, after)) {
+            double score = SkillInferenceEngine.scoreResponse((String) row[2], (Boolean) row[3], (Double) row[4],
+                row[5] != null ? ((Number) row[5]).intValue() : null, (Double) row[6]);
+            BeliefFold.apply(state, new BeliefFold.Event((Long) row[0], (String) row[1], score), correlations);
+        }
+        return state;
+    }
+
+    private void saveSnapshot(Long sessionId, BeliefFold.State state) {
+        BeliefStateSnapshot snapshot = new BeliefStateSnapshot();
+        snapshot.setSession(sessionRepository.getReferenceById(sessionId));
+        snapshot.setModelVersion(BeliefFold.MODEL_VERSION);
+        snapshot.setEventCount(state.getEventCount());
+        snapshot.setLastResponseId(state.getLastResponseId());
+        try {
+            snapshot.setSkillStates(MAPPER.writeValueAsString(state.getSkills()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode belief snapshot", e);
+        }
+        // Only the latest snapshot is ever read
+        snapshotRepository.deleteBySessionId(sessionId);
+        snapshotRepository.save(snapshot);
+        log.debug("Stored belief snapshot for session {} at {} answers", sessionId, state.getEventCount());
+    }
+
+    private BeliefFold.State decode(BeliefStateSnapshot snapshot) {
+        try {
+            Map<String, double[]> skills = MAPPER.readValue(snapshot.getSkillStates(), SKILL_STATES_TYPE);
+            return new BeliefFold.State(skills, snapshot.getEventCount(), snapshot.getLastResponseId());
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable belief snapshot {}: {}", snapshot.getId(), e.getMessage());
+            return new BeliefFold.State();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.skillmap.service.engine;
+
+/**
+ * Assessed level and graph level of every skill for one session, in arrays indexed by skill ordinal.
+ * Built once per question selection so scoring candidates needs no repository or graph calls.
+ */
+public final class BeliefSnapshot {
+
+    static final double NEUTRAL_BELIEF = 0.5;
+
+    private final SkillGraphService.SkillOrdinals ordinals;
+    private final double[] beliefs;
+
+    BeliefSnapshot(SkillGraphService.SkillOrdinals ordinals, double[] beliefs) {
+        this.ordinals = ordinals;
+        this.beliefs = beliefs;
+    }
+
+    /**
+     * Ordinal of the skill, or -1 if it is not in the skill graph.
+     */
+    public int ordinal(String skillCode) {
+        return ordinals.ordinal(skillCode);
+    }
+
+    /**
+     * Assessed level of the skill in this session; neutral if not assessed yet.
+     */
+    public double belief(int ordinal) {
+        return beliefs[ordinal];
+    }
+
+    /**
+     * Prerequisite-based level of the skill, as {@link SkillGraphService#getSkillLevel(String)}.
+     */
+    public int level(int ordinal) {
+        return ordinals.levels()[ordinal];
+    }
+}
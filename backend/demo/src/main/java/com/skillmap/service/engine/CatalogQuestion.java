@@ -0,0 +1,92 @@
+package com.skillmap.service.engine;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillmap.model.entity.Question;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link Question} in the {@link QuestionCatalog}, with its JSON fields parsed once.
+ * Serializes with the same JSON fields as the entity, so API responses are unchanged.
+ */
+public record CatalogQuestion(
+    Long id,
+    String questionText,
+    String questionType,
+    Double difficultyLevel,
+    String difficulty,
+    String options,
+    String correctAnswer,
+    List<String> optionsList,
+    String topic,
+    String explanation,
+    String expectedKeywords,
+    String levelIndicators,
+    Integer suggestedAnswerLength,
+    String contextHint,
+    String followUpText,
+    Integer timesAsked,
+    Integer avgResponseTime,
+    LocalDateTime createdAt,
+    @JsonIgnore CatalogSkill skill,
+    @JsonIgnore List<String> keywords,
+    @JsonIgnore IrtModel.ItemParameters item,
+    @JsonIgnore double[] information
+) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
+    /**
+     * Skill code, or null if the question has no skill.
+     */
+    @JsonIgnore
+    public String skillCode() {
+        return skill != null ? skill.skillCode() : null;
+    }
+
+    /**
+     * Copy an entity whose skill is already loaded.
+     */
+    public static CatalogQuestion from(Question question) {
+        IrtModel.ItemParameters item = IrtModel.parametersFor(question);
+        return new CatalogQuestion(
+            question.getId(),
+            question.getQuestionText(),
+            question.getQuestionType(),
+            question.getDifficultyLevel(),
+            question.getDifficulty(),
+            question.getOptions(),
+            question.getCorrectAnswer(),
+            parseList(question.getOptions()),
+            question.getTopic(),
+            question.getExplanation(),
+            question.getExpectedKeywords(),
+            question.getLevelIndicators(),
+            question.getSuggestedAnswerLength(),
+            question.getContextHint(),
+            question.getFollowUpText(),
+            question.getTimesAsked(),
+            question.getAvgResponseTime(),
+            question.getCreatedAt(),
+            CatalogSkill.from(question.getSkill()),
+            parseList(question.getExpectedKeywords()),
+            item,
+            IrtModel.informationTable(item)
+        );
+    }
+
+    private static List<String> parseList(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return List.of();
+        }
+        try {
+            return List.copyOf(MAPPER.readValue(json, STRING_LIST));
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+}
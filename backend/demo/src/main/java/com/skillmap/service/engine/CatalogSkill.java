@@ -0,0 +1,14 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.Skill;
+
+/**
+ * Skill metadata carried by a {@link CatalogQuestion}; a plain copy, so it never needs a persistence context.
+ */
+public record CatalogSkill(Long id, String skillCode, String displayName, Skill.Category category) {
+
+    static CatalogSkill from(Skill skill) {
+        return skill == null ? null
+            : new CatalogSkill(skill.getId(), skill.getSkillCode(), skill.getDisplayName(), skill.getCategory());
+    }
+}
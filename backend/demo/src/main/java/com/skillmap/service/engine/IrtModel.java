@@ -0,0 +1,177 @@
+package com.skillmap.service.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillmap.model.entity.Question;
+
+import java.util.List;
+
+/**
+ * Item response theory math for adaptive testing: logistic item models (2PL for text, 3PL for MCQ),
+ * Fisher information tables and EAP ability estimates, all over one fixed ability grid.
+ */
+public final class IrtModel {
+
+    static final double THETA_MIN = -4.0;
+    static final double THETA_MAX = 4.0;
+    static final double THETA_STEP = 0.1;
+    static final int GRID_SIZE = (int) Math.round((THETA_MAX - THETA_MIN) / THETA_STEP) + 1;
+
+    private static final double D = 1.702; // logistic scaling constant, close to the normal ogive
+    private static final double MCQ_DISCRIMINATION = 1.2;
+    private static final double TEXT_DISCRIMINATION = 0.9;
+    private static final double DEFAULT_GUESSING = 0.25;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final double[] THETA = new double[GRID_SIZE];
+
+    static {
+        for (int i = 0; i < GRID_SIZE; i++) {
+            THETA[i] = THETA_MIN + i * THETA_STEP;
+        }
+    }
+
+    private IrtModel() {
+    }
+
+    /**
+     * Discrimination a, difficulty b and guessing c of one item. c is 0 for 2PL items.
+     */
+    public record ItemParameters(double a, double b, double c) {
+    }
+
+    /**
+     * Posterior mean ability and its standard error.
+     */
+    public record AbilityEstimate(double theta, double standardError, int observations) {
+    }
+
+    /**
+     * Parameters derived from the question's authored difficulty. The bank is not calibrated from
+     * response data, so discrimination and guessing use fixed per-type defaults.
+     */
+    public static ItemParameters parametersFor(Question question) {
+        return parametersFor(question.getQuestionType(), question.getDifficultyLevel(),
+            question.getDifficulty(), question.getOptions());
+    }
+
+    public static ItemParameters parametersFor(String questionType, Double difficultyLevel,
+                                               String difficulty, String optionsJson) {
+        boolean mcq = "mcq".equalsIgnoreCase(questionType) || "choice".equalsIgnoreCase(questionType);
+        double b = difficultyToTheta(difficultyLevel, difficulty);
+        if (mcq) {
+            int options = countOptions(optionsJson);
+            double c = options > 1 ? 1.0 / options : DEFAULT_GUESSING;
+            return new ItemParameters(MCQ_DISCRIMINATION, b, c);
+        }
+        return new ItemParameters(TEXT_DISCRIMINATION, b, 0.0);
+    }
+
+    static double difficultyToTheta(Double difficultyLevel, String difficulty) {
+        if (difficultyLevel != null) {
+            // Seed data uses roughly 1.0-4.0 with 2.5 as "Intermediate"; older rows use 0.0-1.0
+            double b = difficultyLevel <= 1.0 ? (difficultyLevel - 0.5) * 4.0 : (difficultyLevel - 2.5) * 1.5;
+            return Math.max(-3.0, Math.min(3.0, b));
+        }
+        if (difficulty == null) {
+            return 0.0;
+        }
+        switch (difficulty.trim().toLowerCase()) {
+            case "easy":
+            case "beginner":
+                return -1.0;
+            case "advanced":
+            case "hard":
+                return 1.0;
+            default:
+                return 0.0;
+        }
+    }
+
+    private static int countOptions(String options) {
+        if (options == null || options.isBlank()) {
+            return 0;
+        }
+        try {
+            JsonNode node = MAPPER.readTree(options);
+            return node.isArray() ? node.size() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public static double probability(ItemParameters item, double theta) {
+        return item.c() + (1.0 - item.c()) / (1.0 + Math.exp(-D * item.a() * (theta - item.b())));
+    }
+
+    /**
+     * Fisher information of the item at every grid point.
+     */
+    public static double[] informationTable(ItemParameters item) {
+        double[] table = new double[GRID_SIZE];
+        double c = item.c();
+        double da2 = D * D * item.a() * item.a();
+        for (int i = 0; i < GRID_SIZE; i++) {
+            double p = probability(item, THETA[i]);
+            double q = 1.0 - p;
+            double ratio = (p - c) / (1.0 - c);
+            table[i] = da2 * ratio * ratio * q / p;
+        }
+        return table;
+    }
+
+    /**
+     * Index of the grid point nearest to theta.
+     */
+    public static int gridIndex(double theta) {
+        int i = (int) Math.round((theta - THETA_MIN) / THETA_STEP);
+        return Math.max(0, Math.min(GRID_SIZE - 1, i));
+    }
+
+    /**
+     * Expected a posteriori estimate under a normal prior. Scores are treated as fractional successes,
+     * so graded text answers contribute proportionally.
+     */
+    public static AbilityEstimate estimate(List<ItemParameters> items, double[] scores,
+                                           double priorMean, double priorSd) {
+        double[] logPosterior = new double[GRID_SIZE];
+        double variance = priorSd * priorSd;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            double z = THETA[i] - priorMean;
+            logPosterior[i] = -0.5 * z * z / variance;
+        }
+        for (int k = 0; k < items.size(); k++) {
+            ItemParameters item = items.get(k);
+            double u = Math.max(0.0, Math.min(1.0, scores[k]));
+            for (int i = 0; i < GRID_SIZE; i++) {
+                double p = Math.max(1e-9, Math.min(1.0 - 1e-9, probability(item, THETA[i])));
+                logPosterior[i] += u * Math.log(p) + (1.0 - u) * Math.log(1.0 - p);
+            }
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (double lp : logPosterior) {
+            max = Math.max(max, lp);
+        }
+        double mass = 0.0, mean = 0.0;
+        double[] weights = new double[GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++) {
+            weights[i] = Math.exp(logPosterior[i] - max);
+            mass += weights[i];
+            mean += weights[i] * THETA[i];
+        }
+        mean /= mass;
+        double var = 0.0;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            double z = THETA[i] - mean;
+            var += weights[i] * z * z;
+        }
+        return new AbilityEstimate(mean, Math.sqrt(var / mass), items.size());
+    }
+
+    /**
+     * Map an ability estimate to the 0-1 belief scale the rest of the engine reports.
+     */
+    public static double toBelief(double theta) {
+        return 1.0 / (1.0 + Math.exp(-D * theta));
+    }
+}
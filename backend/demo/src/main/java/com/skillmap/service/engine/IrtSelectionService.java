@@ -0,0 +1,141 @@
+package com.skillmap.service.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Computerized adaptive testing on top of {@link IrtModel}. Enabled with
+ * {@code assessment.selection.mode=irt}: picks the unanswered item with maximum Fisher information
+ * at the current ability estimate of its skill, and reports when the overall standard error is low
+ * enough to stop.
+ */
+@Service
+@Slf4j
+public class IrtSelectionService {
+
+    private static final double PRIOR_SD = 1.0;
+
+    private final String selectionMode;
+    private final double standardErrorTarget;
+    private final int minQuestions;
+
+    public IrtSelectionService(
+            @Value("${assessment.selection.mode:heuristic}") String selectionMode,
+            @Value("${assessment.irt.se-target:0.5}") double standardErrorTarget,
+            @Value("${assessment.irt.min-questions:5}") int minQuestions
+    ) {
+        this.selectionMode = selectionMode == null ? "heuristic" : selectionMode.trim();
+        this.standardErrorTarget = standardErrorTarget;
+        this.minQuestions = minQuestions;
+    }
+
+    public boolean isEnabled() {
+        return "irt".equalsIgnoreCase(selectionMode);
+    }
+
+    public String getSelectionMode() {
+        return isEnabled() ? "irt" : "heuristic";
+    }
+
+    public double getStandardErrorTarget() {
+        return standardErrorTarget;
+    }
+
+    public int getMinQuestions() {
+        return minQuestions;
+    }
+
+    /**
+     * Ability across all answered items, under a standard normal prior.
+     */
+    public IrtModel.AbilityEstimate overallAbility(AssessmentSessionState state) {
+        return estimate(state.getObservations(), skill -> true, 0.0);
+    }
+
+    /**
+     * Ability per answered skill. Each skill's prior is centred on the estimate from the session's other
+     * skills, so a skill with one or two answers borrows strength from the rest of the session without
+     * counting its own answers twice.
+     */
+    public Map<String, IrtModel.AbilityEstimate> skillAbilities(AssessmentSessionState state) {
+        List<AssessmentSessionState.ItemObservation> observations = state.getObservations();
+        Map<String, IrtModel.AbilityEstimate> bySkill = new HashMap<>();
+        for (AssessmentSessionState.ItemObservation o : observations) {
+            if (o.skillCode() != null && !bySkill.containsKey(o.skillCode())) {
+                bySkill.put(o.skillCode(), skillAbility(observations, o.skillCode()));
+            }
+        }
+        return bySkill;
+    }
+
+    /**
+     * Whether the session has enough answers and a small enough standard error to stop.
+     */
+    public boolean isPrecise(AssessmentSessionState state) {
+        return state.getAnsweredCount() >= minQuestions
+            && overallAbility(state).standardError() <= standardErrorTarget;
+    }
+
+    /**
+     * Maximum-information item among the candidates, or null if there are none.
+     */
+    public CatalogQuestion selectNext(List<CatalogQuestion> candidates, AssessmentSessionState state) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        List<AssessmentSessionState.ItemObservation> observations = state.getObservations();
+        double overall = estimate(observations, skill -> true, 0.0).theta();
+        int overallIndex = IrtModel.gridIndex(overall);
+
+        // Grid index of each skill's ability, estimated once per selection
+        Map<String, Integer> skillIndex = new HashMap<>();
+        CatalogQuestion best = null;
+        double bestInformation = -1.0;
+        for (CatalogQuestion question : candidates) {
+            String skillCode = question.skillCode();
+            int index = skillCode == null ? overallIndex : skillIndex.computeIfAbsent(skillCode,
+                code -> IrtModel.gridIndex(skillAbility(observations, code).theta()));
+            // Information tables are precomputed per question when the catalog is built
+            double information = question.information()[index];
+            if (information > bestInformation) {
+                bestInformation = information;
+                best = question;
+            }
+        }
+        log.debug("IRT selection for session {}: question {} (information {}, overall theta {})",
+            state.getSessionId(), best.id(), bestInformation, overall);
+        return best;
+    }
+
+    /**
+     * EAP over the skill's observations, under a prior centred on the EAP over all other observations.
+     */
+    private static IrtModel.AbilityEstimate skillAbility(List<AssessmentSessionState.ItemObservation> observations,
+                                                         String skillCode) {
+        double others = estimate(observations, skill -> !skillCode.equals(skill), 0.0).theta();
+        return estimate(observations, skillCode::equals, others);
+    }
+
+    /**
+     * EAP over the observations whose skill code passes the filter (null for untagged items).
+     */
+    private static IrtModel.AbilityEstimate estimate(List<AssessmentSessionState.ItemObservation> observations,
+                                                     Predicate<String> skillFilter, double priorMean) {
+        List<IrtModel.ItemParameters> items = new ArrayList<>();
+        double[] scores = new double[observations.size()];
+        for (AssessmentSessionState.ItemObservation o : observations) {
+            if (o.item() != null && skillFilter.test(o.skillCode())) {
+                scores[items.size()] = o.score();
+                items.add(o.item());
+            }
+        }
+        return IrtModel.estimate(items, scores, priorMean, PRIOR_SD);
+    }
+}
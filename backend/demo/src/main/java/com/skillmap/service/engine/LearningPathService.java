@@ -0,0 +1,297 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.AssessmentSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Learning paths from what a user already knows to a set of target skills.
+ *
+ * <p>Prerequisites are conjunctive: a skill can only be learned once every one of its prerequisites is
+ * known. A target therefore needs its whole unmet prerequisite closure, walked from the target up
+ * through its prerequisites and stopping at skills the user has mastered. The path is the union of the
+ * targets' closures in topological order, so each skill comes after all of its prerequisites. Learning a
+ * skill costs its gap to mastery divided by the weight of its strongest prerequisite, so strong
+ * prerequisites make it cheaper. A target is costed as the sum over its closure. Only the targets and
+ * their transitive prerequisites can be on a path; that search space depends on the graph alone and is
+ * cached per graph version and target set, so a query only walks it with the user's gaps.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LearningPathService {
+
+    private static final double DEFAULT_LEVEL = 0.5;
+    private static final float MIN_WEIGHT = 0.1f;
+
+    private final SkillGraphService skillGraphService;
+    private final SkillInferenceEngine skillInferenceEngine;
+
+    @Value("${roadmap.paths.mastery-level:0.8}")
+    private double masteryLevel;
+
+    @Value("${roadmap.paths.cache-size:512}")
+    private int cacheSize;
+
+    private final AtomicReference<SearchSpaces> searchSpaces = new AtomicReference<>();
+
+    /**
+     * One skill on a learning path: its remaining gap, the effort of learning it, the effort of the path
+     * up to and including it, and its unmet prerequisites, which all come earlier on the path.
+     */
+    public record Step(String skillCode, double gap, double effort, double totalEffort, List<String> prerequisites,
+                       boolean target) {
+    }
+
+    /**
+     * Steps of all targets' unmet prerequisite closures, each skill once, in learning order, with the
+     * effort of each target's own closure. Targets that are not skills of the graph, or that depend on a
+     * cycle of unmet skills, are listed separately.
+     */
+    public record LearningPath(long graphVersion, List<String> targets, List<Step> steps, double totalEffort,
+                               Map<String, Double> targetEfforts, List<String> unreachable) {
+    }
+
+    /**
+     * Learning path to the targets for the session's current skill beliefs.
+     */
+    public LearningPath findPath(AssessmentSession session, Collection<String> targetSkills) {
+        return findPath(targetSkills, skillInferenceEngine.getSkillBeliefs(session));
+    }
+
+    /**
+     * Learning path to the targets for the given skill levels in [0, 1]; skills without a level count
+     * as {@value #DEFAULT_LEVEL}.
+     */
+    public LearningPath findPath(Collection<String> targetSkills, Map<String, Double> skillLevels) {
+        SkillGraphSnapshot graph = skillGraphService.current();
+        SkillGraphService.SkillOrdinals ordinals = graph.getOrdinals();
+        List<String> targets = List.copyOf(new TreeSet<>(targetSkills));
+        SearchSpace space = searchSpace(graph, targets);
+        int m = space.nodes.length;
+
+        double[] gaps = new double[m];
+        double[] efforts = new double[m];
+        for (int i = 0; i < m; i++) {
+            Double level = skillLevels.get(ordinals.code(space.nodes[i]));
+            gaps[i] = Math.max(0.0, masteryLevel - (level != null ? level : DEFAULT_LEVEL));
+            efforts[i] = gaps[i] / space.strongestPrerequisite[i];
+        }
+
+        // Unmet prerequisite closure of each target, up to the skills already mastered
+        BitSet needed = new BitSet(m);
+        BitSet closure = new BitSet(m);
+        int[] stack = new int[m];
+        Map<String, Double> targetEfforts = new LinkedHashMap<>();
+        List<String> unreachable = new ArrayList<>(space.unknown);
+        for (int t : space.targets) {
+            closure.clear();
+            boolean blocked = false;
+            double effort = 0.0;
+            int top = 0;
+            if (gaps[t] > 0.0) {
+                closure.set(t);
+                stack[top++] = t;
+            }
+            while (top > 0) {
+                int u = stack[--top];
+                effort += efforts[u];
+                blocked |= space.rank[u] < 0;
+                for (int k = space.parentPtr[u], end = space.parentPtr[u + 1]; k < end; k++) {
+                    int p = space.parentCols[k];
+                    if (gaps[p] > 0.0 && !closure.get(p)) {
+                        closure.set(p);
+                        stack[top++] = p;
+                    }
+                }
+            }
+            String code = ordinals.code(space.nodes[t]);
+            if (blocked) {
+                unreachable.add(code);
+                continue;
+            }
+            targetEfforts.put(code, effort);
+            needed.or(closure);
+        }
+
+        BitSet isTarget = new BitSet(m);
+        for (int t : space.targets) {
+            isTarget.set(t);
+        }
+        List<Step> steps = new ArrayList<>(needed.cardinality());
+        double total = 0.0;
+        for (int v : space.order) {
+            if (!needed.get(v)) {
+                continue;
+            }
+            total += efforts[v];
+            List<String> prerequisites = new ArrayList<>();
+            for (int k = space.parentPtr[v], end = space.parentPtr[v + 1]; k < end; k++) {
+                if (needed.get(space.parentCols[k])) {
+                    prerequisites.add(ordinals.code(space.nodes[space.parentCols[k]]));
+                }
+            }
+            steps.add(new Step(ordinals.code(space.nodes[v]), gaps[v], efforts[v], total,
+                List.copyOf(prerequisites), isTarget.get(v)));
+        }
+        return new LearningPath(graph.getVersion(), targets, Collections.unmodifiableList(steps), total,
+            Collections.unmodifiableMap(targetEfforts), Collections.unmodifiableList(unreachable));
+    }
+
+    private SearchSpace searchSpace(SkillGraphSnapshot graph, List<String> targets) {
+        SearchSpaces cache = searchSpaces.get();
+        if (cache == null || cache.graphVersion != graph.getVersion()) {
+            SearchSpaces fresh = new SearchSpaces(graph.getVersion());
+            // Keep a newer cache if another thread already replaced this one
+            cache = searchSpaces.accumulateAndGet(fresh, (current, candidate) ->
+                current == null || candidate.graphVersion > current.graphVersion ? candidate : current);
+            if (cache.graphVersion != graph.getVersion()) {
+                return SearchSpace.build(graph, targets);
+            }
+        }
+        SearchSpace space = cache.byTargets.get(targets);
+        if (space == null) {
+            if (cache.byTargets.size() >= cacheSize) {
+                cache.byTargets.clear();
+            }
+            space = SearchSpace.build(graph, targets);
+            cache.byTargets.put(targets, space);
+            log.debug("Cached learning path search space of {} skills for {} targets at graph version {}",
+                space.nodes.length, targets.size(), graph.getVersion());
+        }
+        return space;
+    }
+
+    private static final class SearchSpaces {
+        private final long graphVersion;
+        private final ConcurrentHashMap<List<String>, SearchSpace> byTargets = new ConcurrentHashMap<>();
+
+        private SearchSpaces(long graphVersion) {
+            this.graphVersion = graphVersion;
+        }
+    }
+
+    /**
+     * Targets and their transitive prerequisites, renumbered 0..m-1, with each skill's prerequisites in
+     * CSR form, its strongest prerequisite weight and a topological order. Immutable.
+     */
+    private static final class SearchSpace {
+        private final int[] nodes;                    // local index -> graph ordinal
+        private final int[] targets;                  // local indexes of the known targets
+        private final List<String> unknown;
+        private final int[] parentPtr;
+        private final int[] parentCols;
+        private final float[] strongestPrerequisite;  // 1 for skills without prerequisites
+        private final int[] order;                    // local indexes, prerequisites first
+        private final int[] rank;                     // position in order, -1 on or below a cycle
+
+        private SearchSpace(int[] nodes, int[] targets, List<String> unknown, int[] parentPtr, int[] parentCols,
+                            float[] strongestPrerequisite, int[] order, int[] rank) {
+            this.nodes = nodes;
+            this.targets = targets;
+            this.unknown = unknown;
+            this.parentPtr = parentPtr;
+            this.parentCols = parentCols;
+            this.strongestPrerequisite = strongestPrerequisite;
+            this.order = order;
+            this.rank = rank;
+        }
+
+        static SearchSpace build(SkillGraphSnapshot graph, List<String> targetCodes) {
+            SkillGraphService.SkillOrdinals ordinals = graph.getOrdinals();
+            SkillGraphCore core = graph.getCore();
+            BitSet members = new BitSet(ordinals.size());
+            List<Integer> targetOrdinals = new ArrayList<>();
+            List<String> unknown = new ArrayList<>();
+            for (String code : targetCodes) {
+                int ordinal = ordinals.ordinal(code);
+                if (ordinal < 0) {
+                    unknown.add(code);
+                    continue;
+                }
+                targetOrdinals.add(ordinal);
+                members.set(ordinal);
+                members.or(ordinals.ancestors()[ordinal]);
+            }
+
+            int[] nodes = members.stream().toArray();
+            int m = nodes.length;
+            int[] local = new int[ordinals.size()];
+            for (int i = 0; i < m; i++) {
+                local[nodes[i]] = i;
+            }
+            int[] targets = targetOrdinals.stream().mapToInt(ordinal -> local[ordinal]).toArray();
+
+            // Every prerequisite of a member is a member, so parent edges need no filtering
+            int[] parentPtr = new int[m + 1];
+            for (int i = 0; i < m; i++) {
+                parentPtr[i + 1] = parentPtr[i] + core.inEnd(nodes[i]) - core.inStart(nodes[i]);
+            }
+            int[] parentCols = new int[parentPtr[m]];
+            float[] strongest = new float[m];
+            for (int i = 0; i < m; i++) {
+                int v = nodes[i];
+                float weight = 0.0f;
+                for (int k = core.inStart(v), e = parentPtr[i]; k < core.inEnd(v); k++, e++) {
+                    parentCols[e] = local[core.parent(k)];
+                    weight = Math.max(weight, core.inWeight(k));
+                }
+                strongest[i] = parentPtr[i] == parentPtr[i + 1] ? 1.0f : Math.max(weight, MIN_WEIGHT);
+            }
+
+            // Kahn's order over the space; skills on or below a cycle are never released
+            int[] unmet = new int[m];
+            int[] childPtr = new int[m + 1];
+            for (int i = 0; i < m; i++) {
+                unmet[i] = parentPtr[i + 1] - parentPtr[i];
+                for (int k = parentPtr[i]; k < parentPtr[i + 1]; k++) {
+                    childPtr[parentCols[k] + 1]++;
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                childPtr[i + 1] += childPtr[i];
+            }
+            int[] dependents = new int[parentCols.length];
+            int[] fill = Arrays.copyOf(childPtr, m);
+            for (int i = 0; i < m; i++) {
+                for (int k = parentPtr[i]; k < parentPtr[i + 1]; k++) {
+                    dependents[fill[parentCols[k]]++] = i;
+                }
+            }
+            int[] order = new int[m];
+            int[] rank = new int[m];
+            Arrays.fill(rank, -1);
+            int size = 0;
+            for (int i = 0; i < m; i++) {
+                if (unmet[i] == 0) {
+                    order[size++] = i;
+                }
+            }
+            for (int head = 0; head < size; head++) {
+                int u = order[head];
+                rank[u] = head;
+                for (int k = childPtr[u]; k < childPtr[u + 1]; k++) {
+                    if (--unmet[dependents[k]] == 0) {
+                        order[size++] = dependents[k];
+                    }
+                }
+            }
+            return new SearchSpace(nodes, targets, List.copyOf(unknown), parentPtr, parentCols, strongest,
+                Arrays.copyOf(order, size), rank);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.AssessmentSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Decides what the next-question endpoint returns: the next question, or a stop payload.
+ * The decision is precomputed in the background after each answer and served from the session
+ * state while no newer answer or belief update has arrived.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NextQuestionService {
+
+    private final AdaptiveQuestionEngine adaptiveQuestionEngine;
+    private final StoppingCriteriaService stoppingCriteriaService;
+    private final SessionStateService sessionStateService;
+
+    /**
+     * Response body for the session's next step: a {@link CatalogQuestion} or a map with {@code shouldStop}.
+     */
+    public Object next(AssessmentSession session) {
+        AssessmentSessionState state = sessionStateService.get(session);
+        Object prefetched = state.getPrefetchedNext();
+        if (prefetched != null) {
+            log.debug("Serving prefetched next question for session {}", session.getId());
+            return prefetched;
+        }
+        long version = state.getVersion();
+        Object body = decide(session);
+        state.setPrefetchedNext(body, version);
+        return body;
+    }
+
+    /**
+     * Compute and store the next step so the following request is served without selection work.
+     */
+    public void prefetch(AssessmentSession session) {
+        AssessmentSessionState state = sessionStateService.get(session);
+        long version = state.getVersion();
+        state.setPrefetchedNext(decide(session), version);
+        log.debug("Prefetched next question for session {} at version {}", session.getId(), version);
+    }
+
+    private Object decide(AssessmentSession session) {
+        // Evaluate all stopping criteria once
+        StoppingCriteriaService.StoppingDecision decision = stoppingCriteriaService.evaluate(session);
+        if (decision.shouldStop()) {
+            return Map.of(
+                "shouldStop", true,
+                "reason", decision.reason(),
+                "status", decision.status()
+            );
+        }
+
+        CatalogQuestion nextQuestion = adaptiveQuestionEngine.selectNextQuestion(session);
+        if (nextQuestion == null) {
+            return Map.of(
+                "shouldStop", true,
+                "reason", "NO_MORE_QUESTIONS",
+                "status", decision.status()
+            );
+        }
+        return nextQuestion;
+    }
+}
@@ -0,0 +1,98 @@
+package com.skillmap.service.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of every question with its skill metadata. Replaced as a whole when questions
+ * or skills change, so readers never see a partially refreshed catalog.
+ */
+public final class QuestionCatalog {
+
+    private static final int MAX_MEMOISED_ROLES = 256;
+
+    private final long version;
+    private final List<CatalogQuestion> questions;
+    private final Map<Long, CatalogQuestion> byId;
+    // Role-matching fields, lower-cased once per snapshot
+    private final String[] categories;
+    private final String[] skillCodes;
+    private final String[] displayNames;
+    private final boolean[] programming;
+    private final Map<String, List<CatalogQuestion>> byRole = new ConcurrentHashMap<>();
+
+    QuestionCatalog(long version, List<CatalogQuestion> questions) {
+        this.version = version;
+        this.questions = List.copyOf(questions);
+        int n = questions.size();
+        Map<Long, CatalogQuestion> ids = new HashMap<>(n * 2);
+        this.categories = new String[n];
+        this.skillCodes = new String[n];
+        this.displayNames = new String[n];
+        this.programming = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            CatalogQuestion question = questions.get(i);
+            ids.put(question.id(), question);
+            CatalogSkill skill = question.skill();
+            if (skill == null) continue;
+            if (skill.category() != null) {
+                categories[i] = skill.category().name().toLowerCase();
+                programming[i] = skill.category().name().equalsIgnoreCase("Programming");
+            }
+            if (skill.skillCode() != null) skillCodes[i] = skill.skillCode().toLowerCase();
+            if (skill.displayName() != null) displayNames[i] = skill.displayName().toLowerCase();
+        }
+        this.byId = Collections.unmodifiableMap(ids);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<CatalogQuestion> getQuestions() {
+        return questions;
+    }
+
+    public CatalogQuestion get(Long questionId) {
+        return byId.get(questionId);
+    }
+
+    public int size() {
+        return questions.size();
+    }
+
+    /**
+     * Questions whose skill matches the target role (may be empty). Memoised per role.
+     */
+    public List<CatalogQuestion> forRole(String targetRole) {
+        String role = targetRole.toLowerCase();
+        List<CatalogQuestion> cached = byRole.get(role);
+        if (cached != null) {
+            return cached;
+        }
+        if (byRole.size() >= MAX_MEMOISED_ROLES) {
+            byRole.clear();
+        }
+        return byRole.computeIfAbsent(role, this::match);
+    }
+
+    private List<CatalogQuestion> match(String role) {
+        // Common mapping: software engineer/developer -> Programming category
+        boolean engineeringRole = role.contains("engineer") || role.contains("developer");
+        List<CatalogQuestion> matched = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            boolean match = (categories[i] != null && categories[i].contains(role))
+                || (skillCodes[i] != null && skillCodes[i].contains(role))
+                || (displayNames[i] != null && displayNames[i].contains(role))
+                || (engineeringRole && programming[i]);
+            if (match) {
+                matched.add(questions.get(i));
+            }
+        }
+        return Collections.unmodifiableList(matched);
+    }
+}
@@ -0,0 +1,7 @@
+package com.skillmap.service.engine;
+
+/**
+ * Published when a question or skill is created, updated or deleted.
+ */
+public record QuestionCatalogChangedEvent(String entityType) {
+}
@@ -0,0 +1,26 @@
+package com.skillmap.service.engine;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on the entities the question catalog is built from. Hibernate obtains it from the
+ * Spring context, so the publisher is injected.
+ */
+@Component
+@RequiredArgsConstructor
+public class QuestionCatalogEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        eventPublisher.publishEvent(new QuestionCatalogChangedEvent(entity.getClass().getSimpleName()));
+    }
+}
@@ -0,0 +1,71 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.repository.QuestionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the current {@link QuestionCatalog}. The catalog is rebuilt with one fetch-join query on the
+ * first read after a question or skill change commits, so a bulk import causes one rebuild, not one per row.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionCatalogService {
+
+    private final QuestionRepository questionRepository;
+    private final SessionStateService sessionStateService;
+
+    private final AtomicReference<QuestionCatalog> catalog = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long builtAtChange = -1;
+
+    public QuestionCatalog current() {
+        QuestionCatalog current = catalog.get();
+        if (current == null || builtAtChange != changes.get()) {
+            synchronized (this) {
+                current = catalog.get();
+                if (current == null || builtAtChange != changes.get()) {
+                    // Read before loading: a change committed during the load leaves it stale, and a
+                    // failed build leaves it stale for the next read
+                    long change = changes.get();
+                    current = build();
+                    catalog.set(current);
+                    builtAtChange = change;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Mark the catalog for rebuild and drop next questions precomputed from the old one.
+     */
+    public void invalidate() {
+        changes.incrementAndGet();
+        sessionStateService.clearPrefetchedQuestions();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(QuestionCatalogChangedEvent event) {
+        log.debug("{} changed, question catalog will be rebuilt", event.entityType());
+        invalidate();
+    }
+
+    private QuestionCatalog build() {
+        List<CatalogQuestion> questions = questionRepository.findAllWithSkill().stream()
+            .map(CatalogQuestion::from)
+            .toList();
+        QuestionCatalog built = new QuestionCatalog(versions.incrementAndGet(), questions);
+        log.debug("Built question catalog version {} with {} questions", built.getVersion(), built.size());
+        return built;
+    }
+}
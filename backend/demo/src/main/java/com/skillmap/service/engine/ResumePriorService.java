@@ -0,0 +1,100 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.ResumeData;
+import com.skillmap.repository.ResumeDataRepository;
+import com.skillmap.service.analysis.SymbolicValidationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Computes {@link ResumePriors} when a resume is parsed or edited and keeps them in the session state,
+ * so belief computation does not re-read and re-match the resume on every call.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumePriorService {
+
+    private final ResumeDataRepository resumeDataRepository;
+    private final SymbolicValidationService symbolicValidationService;
+    private final SkillGraphService skillGraphService;
+    private final SessionStateService sessionStateService;
+
+    /**
+     * Priors of the session; loaded from its stored resume on first use or after the skill graph changed.
+     */
+    public ResumePriors getPriors(Long sessionId) {
+        AssessmentSessionState state = sessionStateService.get(sessionId);
+        ResumePriors priors = state.getResumePriors();
+        SkillGraphService.SkillOrdinals ordinals = skillGraphService.getSkillOrdinals();
+        if (priors == null || !priors.isCurrent(ordinals)) {
+            List<ResumeData> resumeDataList = resumeDataRepository.findBySessionId(sessionId);
+            // Use the most recent resume data
+            priors = resumeDataList.isEmpty() ? ResumePriors.NONE : compute(resumeDataList.get(0), ordinals);
+            state.setResumePriors(priors);
+        }
+        return priors;
+    }
+
+    /**
+     * Compute priors from a freshly parsed resume and make them the session's priors.
+     */
+    public void onResumeParsed(ResumeData resumeData) {
+        if (resumeData == null || resumeData.getSession() == null || resumeData.getSession().getId() == null) {
+            return;
+        }
+        Long sessionId = resumeData.getSession().getId();
+        store(sessionId, compute(resumeData, skillGraphService.getSkillOrdinals()));
+    }
+
+    /**
+     * Recompute the session's priors from its stored resumes, e.g. after one was edited or deleted.
+     */
+    public void refresh(Long sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        List<ResumeData> resumeDataList = resumeDataRepository.findBySessionId(sessionId);
+        store(sessionId, resumeDataList.isEmpty()
+            ? ResumePriors.NONE
+            : compute(resumeDataList.get(0), skillGraphService.getSkillOrdinals()));
+    }
+
+    private void store(Long sessionId, ResumePriors priors) {
+        sessionStateService.get(sessionId).setResumePriors(priors);
+        // Beliefs were derived from the previous priors
+        sessionStateService.invalidateBeliefs(sessionId);
+    }
+
+    private ResumePriors compute(ResumeData resumeData, SkillGraphService.SkillOrdinals ordinals) {
+        // Extract verified skills from resume
+        Set<String> resumeSkills = symbolicValidationService.extractVerifiedSkills(resumeData);
+        String[] resumeNames = resumeSkills.stream()
+            .map(skill -> skill.toLowerCase(Locale.ROOT))
+            .toArray(String[]::new);
+
+        // Set priors based on resume presence
+        double[] priors = new double[ordinals.size()];
+        for (int i = 0; i < priors.length; i++) {
+            String skillName = ordinals.code(i).toLowerCase(Locale.ROOT);
+            boolean skillPresent = false;
+            for (String resumeSkill : resumeNames) {
+                if (resumeSkill.contains(skillName) || skillName.contains(resumeSkill)) {
+                    skillPresent = true;
+                    break;
+                }
+            }
+            // High prior for skills present in resume, low prior for absent skills
+            priors[i] = skillPresent ? ResumePriors.PRESENT_PRIOR : ResumePriors.ABSENT_PRIOR;
+        }
+
+        log.info("Extracted {} resume skills as priors for session {}", resumeNames.length,
+            resumeData.getSession() != null ? resumeData.getSession().getId() : null);
+        return new ResumePriors(ordinals, priors);
+    }
+}
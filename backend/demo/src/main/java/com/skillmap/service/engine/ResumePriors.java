@@ -0,0 +1,41 @@
+package com.skillmap.service.engine;
+
+/**
+ * Resume-based prior belief of every skill for one session, indexed by the skill ordinals of one
+ * graph build: high for skills the resume mentions, low for the rest. Without a resume every skill
+ * gets the neutral prior.
+ */
+public final class ResumePriors {
+
+    static final double PRESENT_PRIOR = 0.8;
+    static final double ABSENT_PRIOR = 0.2;
+
+    static final ResumePriors NONE = new ResumePriors(null, null);
+
+    private final SkillGraphService.SkillOrdinals ordinals;
+    private final double[] priors; // null when the session has no resume
+
+    ResumePriors(SkillGraphService.SkillOrdinals ordinals, double[] priors) {
+        this.ordinals = ordinals;
+        this.priors = priors;
+    }
+
+    public boolean hasResume() {
+        return priors != null;
+    }
+
+    /**
+     * Whether these priors were computed for the given graph build; priors without a resume always are.
+     */
+    boolean isCurrent(SkillGraphService.SkillOrdinals current) {
+        return priors == null || ordinals == current;
+    }
+
+    public double prior(String skillCode) {
+        if (priors == null) {
+            return BeliefSnapshot.NEUTRAL_BELIEF;
+        }
+        int ordinal = ordinals.ordinal(skillCode);
+        return ordinal >= 0 ? priors[ordinal] : BeliefSnapshot.NEUTRAL_BELIEF;
+    }
+}
@@ -0,0 +1,45 @@
+package com.skillmap.service.engine;
+
+/**
+ * Wald's sequential probability ratio test of a skill's success rate: H0 {@code p <= p0} (not mastered)
+ * against H1 {@code p >= p1} (mastered), with error rates alpha and beta. Scores in [0, 1] count as
+ * fractional successes, so graded text answers contribute proportionally.
+ */
+public final class SequentialProbabilityRatioTest {
+
+    public enum Outcome {
+        MASTERED,
+        NOT_MASTERED,
+        UNDECIDED
+    }
+
+    private final double successWeight;
+    private final double failureWeight;
+    private final double upperBound;
+    private final double lowerBound;
+
+    public SequentialProbabilityRatioTest(double p0, double p1, double alpha, double beta) {
+        if (!(0 < p0 && p0 < p1 && p1 < 1) || !(0 < alpha && alpha < 1) || !(0 < beta && beta < 1)) {
+            throw new IllegalArgumentException("SPRT needs 0 < p0 < p1 < 1 and error rates in (0, 1)");
+        }
+        this.successWeight = Math.log(p1 / p0);
+        this.failureWeight = Math.log((1 - p1) / (1 - p0));
+        this.upperBound = Math.log((1 - beta) / alpha);
+        this.lowerBound = Math.log(beta / (1 - alpha));
+    }
+
+    public double logLikelihoodRatio(double successes, double trials) {
+        return successes * successWeight + (trials - successes) * failureWeight;
+    }
+
+    public Outcome decide(double successes, double trials) {
+        double llr = logLikelihoodRatio(successes, trials);
+        if (llr >= upperBound) {
+            return Outcome.MASTERED;
+        }
+        if (llr <= lowerBound) {
+            return Outcome.NOT_MASTERED;
+        }
+        return Outcome.UNDECIDED;
+    }
+}
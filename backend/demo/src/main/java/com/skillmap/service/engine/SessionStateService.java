@@ -0,0 +1,141 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.AssessmentSession;
+import com.skillmap.model.entity.Question;
+import com.skillmap.model.entity.Response;
+import com.skillmap.repository.ResponseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of {@link AssessmentSessionState} per active session. A session is hydrated from the
+ * responses table once, then kept current by {@link #recordAnswer(Response)} on every stored answer.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionStateService {
+
+    private static final long IDLE_EVICTION_MS = 2 * 60 * 60 * 1000; // 2 hours
+    private static final long SWEEP_INTERVAL_MS = 5 * 60 * 1000; // 5 minutes
+
+    private final ResponseRepository responseRepository;
+
+    private final Map<Long, AssessmentSessionState> states = new ConcurrentHashMap<>();
+    private volatile long lastSweep = System.currentTimeMillis();
+
+    public AssessmentSessionState get(AssessmentSession session) {
+        return get(session.getId());
+    }
+
+    public AssessmentSessionState get(Long sessionId) {
+        sweepIdle();
+        AssessmentSessionState state = states.computeIfAbsent(sessionId, this::hydrate);
+        state.touch();
+        return state;
+    }
+
+    /**
+     * Apply a newly stored answer to the session's state. Hydrates the session if it is not cached,
+     * in which case the stored answer is already part of what is loaded.
+     */
+    public void recordAnswer(Response response) {
+        if (response.getSession() == null || response.getQuestion() == null) {
+            return;
+        }
+        Long sessionId = response.getSession().getId();
+        AssessmentSessionState state = states.get(sessionId);
+        if (state == null) {
+            get(sessionId);
+            return;
+        }
+        Question question = response.getQuestion();
+        double score = SkillInferenceEngine.scoreResponse(question.getQuestionType(), response.getIsCorrect(),
+                response.getSpecificityScore(),
+                response.getResponseText() != null ? response.getResponseText().length() : null,
+                response.getDepthScore());
+        state.recordAnswer(question.getId(), question.getQuestionType(), question.getTopic(),
+                response.getTotalTimeSeconds(), question.getSkill() != null ? question.getSkill().getSkillCode() : null,
+                score, IrtModel.parametersFor(question));
+        state.touch();
+    }
+
+    /**
+     * Cached beliefs for the session, or null if they need to be recomputed.
+     */
+    public Map<String, Double> getBeliefs(Long sessionId) {
+        AssessmentSessionState state = states.get(sessionId);
+        return state != null ? state.getBeliefs() : null;
+    }
+
+    /**
+     * Version to pass to {@link #setBeliefs}; read it before computing beliefs.
+     */
+    public long getBeliefVersion(Long sessionId) {
+        AssessmentSessionState state = states.get(sessionId);
+        return state != null ? state.getBeliefVersion() : -1;
+    }
+
+    public void setBeliefs(Long sessionId, Map<String, Double> beliefs, long computedAtVersion) {
+        AssessmentSessionState state = states.get(sessionId);
+        if (state != null) {
+            state.setBeliefs(beliefs, computedAtVersion);
+        }
+    }
+
+    public void invalidateBeliefs(Long sessionId) {
+        AssessmentSessionState state = states.get(sessionId);
+        if (state != null) {
+            state.invalidateBeliefs();
+        }
+    }
+
+    /**
+     * Discard every precomputed next question, e.g. after the question bank changed.
+     */
+    public void clearPrefetchedQuestions() {
+        states.values().forEach(AssessmentSessionState::clearPrefetchedNext);
+    }
+
+    /**
+     * Drop the cached state, e.g. after an answer was edited or deleted. It is rebuilt on next use.
+     */
+    public void evict(Long sessionId) {
+        if (sessionId != null) {
+            states.remove(sessionId);
+        }
+    }
+
+    private AssessmentSessionState hydrate(Long sessionId) {
+        AssessmentSessionState state = new AssessmentSessionState(sessionId);
+        List<Object[]> rows = responseRepository.findAnswerSummariesBySessionId(sessionId);
+        for (Object[] row : rows) {
+            double score = SkillInferenceEngine.scoreResponse((String) row[1], (Boolean) row[5], (Double) row[6],
+                    row[8] != null ? ((Number) row[8]).intValue() : null, (Double) row[7]);
+            IrtModel.ItemParameters item = IrtModel.parametersFor((String) row[1], toDouble(row[9]),
+                    (String) row[10], (String) row[11]);
+            state.recordAnswer((Long) row[0], (String) row[1], (String) row[2], (Integer) row[3], (String) row[4],
+                    score, item);
+        }
+        log.debug("Hydrated state for session {} with {} answers", sessionId, rows.size());
+        return state;
+    }
+
+    private static Double toDouble(Object value) {
+        return value instanceof Number n ? n.doubleValue() : null;
+    }
+
+    private void sweepIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < SWEEP_INTERVAL_MS) {
+            return;
+        }
+        lastSweep = now;
+        states.entrySet().removeIf(e -> now - e.getValue().getLastAccessMillis() > IDLE_EVICTION_MS);
+    }
+}
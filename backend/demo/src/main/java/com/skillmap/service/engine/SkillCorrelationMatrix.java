@@ -0,0 +1,140 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.Skill;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skill-to-skill correlation weights used for belief propagation, in compressed sparse row form over
+ * the skill ordinals of one graph build. Row {@code i} holds the correlated skills of skill {@code i} in
+ * {@code cols[rowPtr[i]] .. cols[rowPtr[i + 1] - 1]}, sorted by ordinal, with matching {@code weights}.
+ * Immutable; a new matrix is built when skills or the graph change.
+ */
+public final class SkillCorrelationMatrix {
+
+    static final float PREREQUISITE_WEIGHT = 0.7f;
+    static final float DEPENDENT_WEIGHT = 0.6f;
+    static final float CATEGORY_WEIGHT = 0.4f;
+
+    private final SkillGraphService.SkillOrdinals ordinals;
+    private final int[] rowPtr;
+    private final int[] cols;
+    private final float[] weights;
+
+    private SkillCorrelationMatrix(SkillGraphService.SkillOrdinals ordinals, int[] rowPtr, int[] cols, float[] weights) {
+        this.ordinals = ordinals;
+        this.rowPtr = rowPtr;
+        this.cols = cols;
+        this.weights = weights;
+    }
+
+    /**
+     * Build the matrix in one pass over the skills. A skill correlates with its prerequisites and
+     * dependents in the graph and with the other skills of its category; when several apply, the
+     * category weight wins over the dependent weight, which wins over the prerequisite weight.
+     */
+    static SkillCorrelationMatrix build(SkillGraphService.SkillOrdinals ordinals, List<Skill> skills) {
+        int n = ordinals.size();
+
+        // Category members by ordinal, grouped in memory instead of one query per skill
+        Skill.Category[] categories = new Skill.Category[n];
+        Map<Skill.Category, List<Integer>> byCategory = new HashMap<>();
+        for (Skill skill : skills) {
+            int ordinal = ordinals.ordinal(skill.getSkillCode());
+            if (ordinal >= 0 && skill.getCategory() != null) {
+                categories[ordinal] = skill.getCategory();
+                byCategory.computeIfAbsent(skill.getCategory(), c -> new ArrayList<>()).add(ordinal);
+            }
+        }
+
+        int[] rowPtr = new int[n + 1];
+        int[] cols = new int[Math.max(16, n)];
+        float[] weights = new float[cols.length];
+        int nonZeros = 0;
+
+        // Dense scratch row, reset after each skill; 0 means no correlation
+        float[] row = new float[n];
+        int[] touched = new int[n];
+        for (int i = 0; i < n; i++) {
+            int count = 0;
+            BitSet prerequisites = ordinals.ancestors()[i];
+            for (int p = prerequisites.nextSetBit(0); p >= 0; p = prerequisites.nextSetBit(p + 1)) {
+                count = set(row, touched, count, p, PREREQUISITE_WEIGHT);
+            }
+            BitSet dependents = ordinals.descendants()[i];
+            for (int d = dependents.nextSetBit(0); d >= 0; d = dependents.nextSetBit(d + 1)) {
+                count = set(row, touched, count, d, DEPENDENT_WEIGHT);
+            }
+            if (categories[i] != null) {
+                for (int related : byCategory.get(categories[i])) {
+                    if (related != i) {
+                        count = set(row, touched, count, related, CATEGORY_WEIGHT);
+                    }
+                }
+            }
+
+            if (nonZeros + count > cols.length) {
+                int capacity = Math.max(cols.length * 2, nonZeros + count);
+                cols = Arrays.copyOf(cols, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            Arrays.sort(touched, 0, count);
+            for (int k = 0; k < count; k++) {
+                int col = touched[k];
+                cols[nonZeros] = col;
+                weights[nonZeros++] = row[col];
+                row[col] = 0f;
+            }
+            rowPtr[i + 1] = nonZeros;
+        }
+
+        return new SkillCorrelationMatrix(ordinals, rowPtr,
+            Arrays.copyOf(cols, nonZeros), Arrays.copyOf(weights, nonZeros));
+    }
+
+    private static int set(float[] row, int[] touched, int count, int col, float weight) {
+        if (col < 0) {
+            return count;
+        }
+        if (row[col] == 0f) {
+            touched[count++] = col;
+        }
+        row[col] = weight;
+        return count;
+    }
+
+    public SkillGraphService.SkillOrdinals getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * First index into {@link #col(int)} / {@link #weight(int)} for the row; the row ends at {@code rowEnd(row)}.
+     */
+    public int rowStart(int row) {
+        return rowPtr[row];
+    }
+
+    public int rowEnd(int row) {
+        return rowPtr[row + 1];
+    }
+
+    public int col(int index) {
+        return cols[index];
+    }
+
+    public float weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Number of stored correlations.
+     */
+    public int nonZeros() {
+        return cols.length;
+    }
+}
@@ -0,0 +1,49 @@
+package com.skillmap.service.engine;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of which responses contributed to which skill assessment. Rows are only ever
+ * inserted, in one JDBC batch per belief update, so concurrent updates never rewrite each other's evidence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SkillEvidenceService {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO skill_evidence (assessment_id, response_id, weight, recorded_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * One piece of evidence: a response counted toward an assessment with the given weight.
+     */
+    public record Entry(Long assessmentId, Long responseId, double weight) {
+    }
+
+    /**
+     * Insert the entries as one batch. Joins the caller's transaction, so the evidence commits or rolls
+     * back together with the assessment updates it explains.
+     */
+    public void appendAll(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            args.add(new Object[]{entry.assessmentId(), entry.responseId(), entry.weight(), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+        log.debug("Appended {} skill evidence rows", entries.size());
+    }
+}
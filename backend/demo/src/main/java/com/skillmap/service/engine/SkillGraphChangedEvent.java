@@ -0,0 +1,7 @@
+package com.skillmap.service.engine;
+
+/**
+ * Published when a skill or a skill dependency is created, updated or deleted.
+ */
+public record SkillGraphChangedEvent(String entityType) {
+}
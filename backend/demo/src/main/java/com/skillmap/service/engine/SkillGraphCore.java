@@ -0,0 +1,293 @@
+package com.skillmap.service.engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compact, immutable dependency graph over skill ordinals. Edges go from a prerequisite (parent) to the
+ * skill that depends on it (child) and are stored twice in compressed sparse row form: outgoing edges of
+ * {@code v} are {@code outCols[outPtr[v]] .. outCols[outPtr[v + 1] - 1]}, incoming edges likewise in the
+ * {@code in} arrays, each with the dependency weight. Traversals touch only int arrays: no hashing, no
+ * edge objects. Parallel edges are dropped, keeping the first.
+ */
+public final class SkillGraphCore {
+
+    private final int size;
+    private final int[] outPtr;
+    private final int[] outCols;
+    private final float[] outWeights;
+    private final int[] inPtr;
+    private final int[] inCols;
+    private final float[] inWeights;
+
+    private SkillGraphCore(int size, int[] outPtr, int[] outCols, float[] outWeights,
+                           int[] inPtr, int[] inCols, float[] inWeights) {
+        this.size = size;
+        this.outPtr = outPtr;
+        this.outCols = outCols;
+        this.outWeights = outWeights;
+        this.inPtr = inPtr;
+        this.inCols = inCols;
+        this.inWeights = inWeights;
+    }
+
+    /**
+     * Build from parallel edge arrays (parent ordinal, child ordinal, weight); only the first
+     * {@code edgeCount} entries are read.
+     */
+    public static SkillGraphCore of(int size, int[] parents, int[] children, float[] weights, int edgeCount) {
+        // Counting sort by parent, then by child, so each row is sorted and duplicates are adjacent
+        int[] byParent = sortedEdges(size, parents, children, edgeCount);
+        int[] outPtr = new int[size + 1];
+        int[] outCols = new int[edgeCount];
+        float[] outWeights = new float[edgeCount];
+        int m = 0;
+        for (int k = 0; k < edgeCount; k++) {
+            int e = byParent[k];
+            int parent = parents[e];
+            if (k > 0 && parents[byParent[k - 1]] == parent && children[byParent[k - 1]] == children[e]) {
+                continue; // parallel edge
+            }
+            outCols[m] = children[e];
+            outWeights[m++] = weights[e];
+            outPtr[parent + 1] = m;
+        }
+        for (int v = 0; v < size; v++) {
+            outPtr[v + 1] = Math.max(outPtr[v + 1], outPtr[v]);
+        }
+
+        // Incoming rows are the transpose of the outgoing ones
+        int[] inPtr = new int[size + 1];
+        for (int k = 0; k < m; k++) {
+            inPtr[outCols[k] + 1]++;
+        }
+        for (int v = 0; v < size; v++) {
+            inPtr[v + 1] += inPtr[v];
+        }
+        int[] inCols = new int[m];
+        float[] inWeights = new float[m];
+        int[] fill = Arrays.copyOf(inPtr, size);
+        for (int parent = 0; parent < size; parent++) {
+            for (int k = outPtr[parent]; k < outPtr[parent + 1]; k++) {
+                int slot = fill[outCols[k]]++;
+                inCols[slot] = parent;
+                inWeights[slot] = outWeights[k];
+            }
+        }
+        return new SkillGraphCore(size, outPtr, Arrays.copyOf(outCols, m), Arrays.copyOf(outWeights, m),
+            inPtr, inCols, inWeights);
+    }
+
+    private static int[] sortedEdges(int size, int[] parents, int[] children, int edgeCount) {
+        int[] byChild = countingSort(size, children, identity(edgeCount), edgeCount);
+        return countingSort(size, parents, byChild, edgeCount); // stable, so children stay sorted per parent
+    }
+
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    private static int[] countingSort(int size, int[] keys, int[] items, int count) {
+        int[] start = new int[size + 1];
+        for (int k = 0; k < count; k++) {
+            start[keys[items[k]] + 1]++;
+        }
+        for (int v = 0; v < size; v++) {
+            start[v + 1] += start[v];
+        }
+        int[] sorted = new int[count];
+        for (int k = 0; k < count; k++) {
+            sorted[start[keys[items[k]]]++] = items[k];
+        }
+        return sorted;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int edgeCount() {
+        return outCols.length;
+    }
+
+    // Outgoing edges of v: indexes outStart(v) .. outEnd(v) - 1 into child(i) / outWeight(i)
+    public int outStart(int v) {
+        return outPtr[v];
+    }
+
+    public int outEnd(int v) {
+        return outPtr[v + 1];
+    }
+
+    public int child(int index) {
+        return outCols[index];
+    }
+
+    public float outWeight(int index) {
+        return outWeights[index];
+    }
+
+    // Incoming edges of v: indexes inStart(v) .. inEnd(v) - 1 into parent(i) / inWeight(i)
+    public int inStart(int v) {
+        return inPtr[v];
+    }
+
+    public int inEnd(int v) {
+        return inPtr[v + 1];
+    }
+
+    public int parent(int index) {
+        return inCols[index];
+    }
+
+    public float inWeight(int index) {
+        return inWeights[index];
+    }
+
+    /**
+     * Transitive prerequisites of {@code v}, by iterative depth-first search.
+     */
+    public BitSet ancestors(int v) {
+        return reachable(v, inPtr, inCols);
+    }
+
+    /**
+     * Transitive dependents of {@code v}, by iterative depth-first search.
+     */
+    public BitSet descendants(int v) {
+        return reachable(v, outPtr, outCols);
+    }
+
+    private BitSet reachable(int start, int[] ptr, int[] cols) {
+        BitSet seen = new BitSet(size);
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = start;
+        while (top > 0) {
+            int v = stack[--top];
+            for (int k = ptr[v], end = ptr[v + 1]; k < end; k++) {
+                int next = cols[k];
+                if (!seen.get(next)) {
+                    seen.set(next);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = next;
+                }
+            }
+        }
+        return seen;
+    }
+
+    /**
+     * Kahn's order: prerequisites before dependents. Skills on or below a cycle are left out, so the
+     * result is shorter than {@link #size()} exactly when the graph has a cycle.
+     */
+    public int[] topologicalOrder() {
+        int[] inDegree = new int[size];
+        for (int v = 0; v < size; v++) {
+            inDegree[v] = inPtr[v + 1] - inPtr[v];
+        }
+        int[] order = new int[size];
+        int ordered = 0;
+        for (int v = 0; v < size; v++) {
+            if (inDegree[v] == 0) {
+                order[ordered++] = v;
+            }
+        }
+        for (int head = 0; head < ordered; head++) {
+            int v = order[head];
+            for (int k = outPtr[v], end = outPtr[v + 1]; k < end; k++) {
+                if (--inDegree[outCols[k]] == 0) {
+                    order[ordered++] = outCols[k];
+                }
+            }
+        }
+        return ordered == size ? order : Arrays.copyOf(order, ordered);
+    }
+
+    public boolean hasCycle() {
+        return topologicalOrder().length < size;
+    }
+
+    /**
+     * Strongly connected components by Tarjan's algorithm, with an explicit call stack so deep chains
+     * cannot overflow the thread's stack. Returns the component of every skill; components are numbered
+     * in reverse topological order of the condensed graph.
+     */
+    public int[] stronglyConnectedComponents() {
+        int[] index = new int[size];
+        int[] low = new int[size];
+        int[] component = new int[size];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+        int[] stack = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] callNode = new int[size];
+        int[] callEdge = new int[size];
+        int sp = 0;
+        int counter = 0;
+        int components = 0;
+
+        for (int start = 0; start < size; start++) {
+            if (index[start] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            index[start] = low[start] = counter++;
+            stack[sp++] = start;
+            onStack[start] = true;
+            callNode[depth] = start;
+            callEdge[depth++] = outPtr[start];
+            while (depth > 0) {
+                int v = callNode[depth - 1];
+                int k = callEdge[depth - 1];
+                if (k < outPtr[v + 1]) {
+                    callEdge[depth - 1]++;
+                    int w = outCols[k];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        callNode[depth] = w;
+                        callEdge[depth++] = outPtr[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                if (depth > 0) {
+                    int caller = callNode[depth - 1];
+                    low[caller] = Math.min(low[caller], low[v]);
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Whether {@code v} depends on itself directly.
+     */
+    public boolean hasSelfLoop(int v) {
+        for (int k = outPtr[v], end = outPtr[v + 1]; k < end; k++) {
+            if (outCols[k] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.SkillDependency;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on the entities the skill graph is built from. Hibernate obtains it from the
+ * Spring context, so the publisher is injected. The graph service is looked up on first use, as it
+ * depends on repositories that need the entity manager this listener is created for.
+ */
+@Component
+@RequiredArgsConstructor
+public class SkillGraphEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<SkillGraphService> skillGraphService;
+
+    /**
+     * Reject a dependency that would make the graph cyclic before it is written.
+     */
+    @PrePersist
+    @PreUpdate
+    public void beforeWrite(Object entity) {
+        if (entity instanceof SkillDependency dependency
+            && dependency.getParentSkill() != null && dependency.getChildSkill() != null) {
+            skillGraphService.getObject().checkAcyclic(dependency.getParentSkill().getSkillCode(),
+                dependency.getChildSkill().getSkillCode());
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        eventPublisher.publishEvent(new SkillGraphChangedEvent(entity.getClass().getSimpleName()));
+    }
+}
@@ -1,19 +1,34 @@
 package com.skillmap.service.engine;
 
-import com.skillmap.model.entity.Skill;
 import com.skillmap.model.entity.SkillDependency;
 import com.skillmap.repository.SkillDependencyRepository;
 import com.skillmap.repository.SkillRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultDirectedGraph;
-import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.traverse.TopologicalOrderIterator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.*;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Skill dependency graph, published as an immutable {@link SkillGraphSnapshot}. It is built once the
+ * application is ready; later skill or dependency changes rebuild it on a background thread after they
+ * commit, and the new snapshot is swapped in atomically while readers keep using the previous one.
+ * Builds always run on that thread, so a read from a JPA callback never queries inside a flush.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,135 +36,485 @@ public class SkillGraphService {
 
     private final SkillRepository skillRepository;
     private final SkillDependencyRepository skillDependencyRepository;
+    private final SessionStateService sessionStateService;
+
+    private final AtomicReference<SkillGraphSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final List<PendingDependency> pendingDependencies = new ArrayList<>();
+    private volatile Thread rebuildThread;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "skill-graph-rebuild");
+        t.setDaemon(true);
+        rebuildThread = t;
+        return t;
+    });
+
+    /**
+     * Build a new snapshot from the database and publish it.
+     */
+    public SkillGraphSnapshot buildSkillGraph() {
+        // Numbered before loading, so of two overlapping builds the one that read later wins
+        long version = versions.incrementAndGet();
+        log.info("Building skill dependency graph version {}", version);
+
+        Map<String, SkillGraphSnapshot.SkillInfo> skillMap = new HashMap<>();
+        Map<String, Integer> ordinals = new LinkedHashMap<>();
+        skillRepository.findAll().forEach(skill -> {
+            if (skillMap.putIfAbsent(skill.getSkillCode(), SkillGraphSnapshot.SkillInfo.of(skill)) == null) {
+                ordinals.put(skill.getSkillCode(), ordinals.size());
+            }
+        });
+        String[] codes = ordinals.keySet().toArray(new String[0]);
+
+        // Dependencies as edges (parent -> child) over ordinals; skills are fetched with the dependencies
+        List<SkillDependency> dependencies = skillDependencyRepository.findAllWithSkills();
+        int[] parents = new int[dependencies.size()];
+        int[] children = new int[dependencies.size()];
+        float[] weights = new float[dependencies.size()];
+        int edges = 0;
+        for (SkillDependency dependency : dependencies) {
+            Integer parent = dependency.getParentSkill() != null ? ordinals.get(dependency.getParentSkill().getSkillCode()) : null;
+            Integer child = dependency.getChildSkill() != null ? ordinals.get(dependency.getChildSkill().getSkillCode()) : null;
+            if (parent == null || child == null) {
+                continue;
+            }
+            parents[edges] = parent;
+            children[edges] = child;
+            weights[edges++] = dependency.getWeight() != null ? dependency.getWeight().floatValue() : 1.0f;
+        }
+        SkillGraphCore core = SkillGraphCore.of(codes.length, parents, children, weights, edges);
+
+        // Order, closures, levels, depths and cycles, computed once per build so queries are lookups
+        int[] order = core.topologicalOrder();
+        SkillOrdinals skillOrdinals = computeOrdinals(core, order, Collections.unmodifiableMap(ordinals), codes);
+        List<String> orderedCodes = new ArrayList<>(order.length);
+        for (int v : order) {
+            orderedCodes.add(codes[v]);
+        }
+        List<List<String>> cycles = order.length < codes.length ? findCycles(core, codes) : List.of();
+        if (!cycles.isEmpty()) {
+            log.warn("Skill graph version {} has {} cycles, {} skills are outside the topological order: {}",
+                version, cycles.size(), codes.length - order.length, cycles);
+        }
 
-    private Graph<String, DefaultEdge> skillGraph;
-    private Map<String, Skill> skillMap;
-
-    public void buildSkillGraph() {
-        log.info("Building skill dependency graph");
+        SkillGraphSnapshot built = new SkillGraphSnapshot(version, core, Collections.unmodifiableMap(skillMap),
+            skillOrdinals, Collections.unmodifiableList(orderedCodes), cycles);
+        publish(built);
 
-        skillGraph = new DefaultDirectedGraph<>(DefaultEdge.class);
-        skillMap = new HashMap<>();
+        log.info("Skill graph version {} built with {} vertices and {} edges",
+                built.getVersion(), core.size(), core.edgeCount());
+        return built;
+    }
 
-        // Add all skills as vertices
-        skillRepository.findAll().forEach(skill -> {
-            skillGraph.addVertex(skill.getSkillCode());
-            skillMap.put(skill.getSkillCode(), skill);
-        });
+    /**
+     * Keep the newest snapshot if builds overlap.
+     */
+    private void publish(SkillGraphSnapshot built) {
+        snapshot.accumulateAndGet(built, (current, candidate) ->
+            current == null || candidate.getVersion() > current.getVersion() ? candidate : current);
+        synchronized (pendingDependencies) {
+            // Committed before this build started reading, so they are in it now
+            pendingDependencies.removeIf(pending -> pending.committedAt < built.getVersion());
+        }
+    }
 
-        // Add dependencies as edges (parent -> child)
-        skillDependencyRepository.findAll().forEach(dependency -> {
-            if (dependency.getParentSkill() != null && dependency.getChildSkill() != null) {
-                skillGraph.addEdge(
-                    dependency.getParentSkill().getSkillCode(),
-                    dependency.getChildSkill().getSkillCode()
-                );
+    /**
+     * Skill codes of each strongly connected component that forms a cycle, in ordinal order.
+     */
+    private static List<List<String>> findCycles(SkillGraphCore core, String[] codes) {
+        int[] components = core.stronglyConnectedComponents();
+        Map<Integer, List<Integer>> members = new TreeMap<>();
+        for (int v = 0; v < codes.length; v++) {
+            members.computeIfAbsent(components[v], c -> new ArrayList<>()).add(v);
+        }
+        List<List<String>> cycles = new ArrayList<>();
+        for (List<Integer> component : members.values()) {
+            if (component.size() > 1 || core.hasSelfLoop(component.get(0))) {
+                cycles.add(component.stream().map(v -> codes[v]).toList());
             }
-        });
+        }
+        return Collections.unmodifiableList(cycles);
+    }
 
-        log.info("Skill graph built with {} vertices and {} edges",
-                skillGraph.vertexSet().size(), skillGraph.edgeSet().size());
+    /**
+     * Build the first snapshot before requests arrive.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        current();
     }
 
-    public List<String> getPrerequisiteSkills(String skillCode) {
-        if (skillGraph == null) {
-            buildSkillGraph();
+    /**
+     * Current graph snapshot. If none has been published yet, it is built on the rebuild thread and the
+     * caller waits, so a caller inside a flush or transaction never runs the build's queries itself.
+     */
+    public SkillGraphSnapshot current() {
+        SkillGraphSnapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    current = buildOnRebuildThread();
+                }
+            }
         }
+        return current;
+    }
 
-        List<String> prerequisites = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
+    private SkillGraphSnapshot buildOnRebuildThread() {
+        if (Thread.currentThread() == rebuildThread) {
+            return buildSkillGraph();
+        }
+        try {
+            return rebuildExecutor.submit(this::buildSkillGraph).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the skill graph", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Skill graph build failed", e.getCause());
+        }
+    }
 
-        getPrerequisitesRecursive(skillCode, prerequisites, visited);
+    /**
+     * Version of the current snapshot, for caches derived from the graph.
+     */
+    public long getGraphVersion() {
+        return current().getVersion();
+    }
 
-        return prerequisites;
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGraphChanged(SkillGraphChangedEvent event) {
+        log.debug("{} changed, skill graph will be rebuilt", event.entityType());
+        requestRebuild();
     }
 
-    private void getPrerequisitesRecursive(String skillCode, List<String> prerequisites, Set<String> visited) {
-        if (visited.contains(skillCode)) {
-            return;
+    /**
+     * Rebuild in the background. Requests arriving before the rebuild starts share it; one arriving
+     * during a rebuild schedules another, so the last change is always reflected.
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    buildSkillGraph();
+                    // Next questions were chosen with the old levels
+                    sessionStateService.clearPrefetchedQuestions();
+                } catch (Exception e) {
+                    log.warn("Skill graph rebuild failed, keeping version {}: {}",
+                        snapshot.get() != null ? snapshot.get().getVersion() : 0, e.getMessage());
+                }
+            });
         }
+    }
 
-        visited.add(skillCode);
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
 
-        // Get all incoming edges (prerequisites)
-        skillGraph.incomingEdgesOf(skillCode).forEach(edge -> {
-            String prerequisite = skillGraph.getEdgeSource(edge);
-            prerequisites.add(prerequisite);
-            getPrerequisitesRecursive(prerequisite, prerequisites, visited);
-        });
+    /**
+     * Skill ordinals and levels of the current graph build.
+     */
+    public SkillOrdinals getSkillOrdinals() {
+        return current().getOrdinals();
     }
 
-    public List<String> getDependentSkills(String skillCode) {
-        if (skillGraph == null) {
-            buildSkillGraph();
+    /**
+     * Dense skill ordinals with, per ordinal, the skill code, its level (number of transitive
+     * prerequisites + 1), its depth (longest prerequisite chain above it) and its transitive prerequisites
+     * and dependents as bitsets over ordinals. Arrays and bitsets must not be modified.
+     */
+    public record SkillOrdinals(Map<String, Integer> byCode, String[] codes, int[] levels, int[] depths,
+                                BitSet[] ancestors, BitSet[] descendants) {
+        public int ordinal(String skillCode) {
+            Integer ordinal = skillCode != null ? byCode.get(skillCode) : null;
+            return ordinal != null ? ordinal : -1;
         }
 
-        List<String> dependents = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
+        public String code(int ordinal) {
+            return codes[ordinal];
+        }
 
-        getDependentsRecursive(skillCode, dependents, visited);
+        public int size() {
+            return levels.length;
+        }
 
-        return dependents;
+        private List<String> codesOf(BitSet ordinals) {
+            List<String> result = new ArrayList<>(ordinals.cardinality());
+            for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+                result.add(codes[i]);
+            }
+            return result;
+        }
     }
 
-    private void getDependentsRecursive(String skillCode, List<String> dependents, Set<String> visited) {
-        if (visited.contains(skillCode)) {
-            return;
+    /**
+     * Closures, levels and depths in one topological pass: ancestors and depths forward over Kahn's
+     * order, descendants backward. Skills on or below a cycle are not in the order and fall back to a
+     * depth-first walk.
+     */
+    private static SkillOrdinals computeOrdinals(SkillGraphCore core, int[] order, Map<String, Integer> byCode,
+                                                 String[] codes) {
+        int n = core.size();
+
+        BitSet[] ancestors = new BitSet[n];
+        BitSet[] descendants = new BitSet[n];
+        int[] depths = new int[n];
+        for (int v : order) {
+            BitSet closure = new BitSet(n);
+            for (int k = core.inStart(v), end = core.inEnd(v); k < end; k++) {
+                int parent = core.parent(k);
+                closure.or(ancestors[parent]);
+                closure.set(parent);
+                depths[v] = Math.max(depths[v], depths[parent] + 1);
+            }
+            ancestors[v] = closure;
+        }
+        for (int i = order.length - 1; i >= 0; i--) {
+            int v = order[i];
+            BitSet closure = new BitSet(n);
+            for (int k = core.outStart(v), end = core.outEnd(v); k < end; k++) {
+                int child = core.child(k);
+                closure.or(descendants[child]);
+                closure.set(child);
+            }
+            descendants[v] = closure;
+        }
+        if (order.length < n) {
+            BitSet ordered = new BitSet(n);
+            for (int v : order) {
+                ordered.set(v);
+            }
+            for (int v = 0; v < n; v++) {
+                if (ancestors[v] == null) {
+                    ancestors[v] = core.ancestors(v);
+                    for (int k = core.inStart(v), end = core.inEnd(v); k < end; k++) {
+                        int parent = core.parent(k);
+                        if (ordered.get(parent)) {
+                            depths[v] = Math.max(depths[v], depths[parent] + 1);
+                        }
+                    }
+                }
+                if (descendants[v] == null) {
+                    descendants[v] = core.descendants(v);
+                }
+            }
         }
 
-        visited.add(skillCode);
+        int[] levels = new int[n];
+        for (int v = 0; v < n; v++) {
+            levels[v] = ancestors[v].cardinality() + 1; // Level based on number of prerequisites
+        }
+        return new SkillOrdinals(byCode, codes, levels, depths, ancestors, descendants);
+    }
 
-        // Get all outgoing edges (dependents)
-        skillGraph.outgoingEdgesOf(skillCode).forEach(edge -> {
-            String dependent = skillGraph.getEdgeTarget(edge);
-            dependents.add(dependent);
-            getDependentsRecursive(dependent, dependents, visited);
-        });
+    /**
+     * Transitive prerequisites of the skill, by ordinal; empty for an unknown skill.
+     */
+    public List<String> getPrerequisiteSkills(String skillCode) {
+        SkillOrdinals current = getSkillOrdinals();
+        int ordinal = current.ordinal(skillCode);
+        return ordinal >= 0 ? current.codesOf(current.ancestors()[ordinal]) : new ArrayList<>();
     }
 
+    /**
+     * Transitive dependents of the skill, by ordinal; empty for an unknown skill.
+     */
+    public List<String> getDependentSkills(String skillCode) {
+        SkillOrdinals current = getSkillOrdinals();
+        int ordinal = current.ordinal(skillCode);
+        return ordinal >= 0 ? current.codesOf(current.descendants()[ordinal]) : new ArrayList<>();
+    }
+
+    /**
+     * Whether {@code prerequisite} is a direct or transitive prerequisite of {@code skillCode}.
+     */
+    public boolean isPrerequisite(String prerequisite, String skillCode) {
+        SkillOrdinals current = getSkillOrdinals();
+        int from = current.ordinal(prerequisite);
+        int to = current.ordinal(skillCode);
+        return from >= 0 && to >= 0 && current.ancestors()[to].get(from);
+    }
+
+    /**
+     * Skills ordered so that every prerequisite comes before the skills depending on it, as computed
+     * when the current graph was built; read-only.
+     *
+     * @throws IllegalStateException if the graph has a cycle
+     */
     public List<String> getTopologicalOrder() {
-        if (skillGraph == null) {
-            buildSkillGraph();
+        SkillGraphSnapshot current = current();
+        if (!current.getCycles().isEmpty()) {
+            throw new IllegalStateException("Skill graph has cycles: " + current.getCycles());
         }
+        return current.getTopologicalOrder();
+    }
 
-        List<String> orderedSkills = new ArrayList<>();
-        TopologicalOrderIterator<String, DefaultEdge> iterator =
-            new TopologicalOrderIterator<>(skillGraph);
+    public boolean hasCycles() {
+        return !current().getCycles().isEmpty();
+    }
 
-        iterator.forEachRemaining(orderedSkills::add);
+    /**
+     * Skill codes of every cycle in the current graph; empty for a valid graph.
+     */
+    public List<List<String>> getCycles() {
+        return current().getCycles();
+    }
 
-        return orderedSkills;
+    /**
+     * Reject a dependency that would close a cycle: one whose parent is reachable from its child in
+     * the current graph plus the dependencies accepted since it was built. Called before a dependency
+     * is written, see {@link SkillGraphEntityListener}. An accepted dependency is kept until its
+     * transaction completes: dropped unless it committed, and after a commit kept until a graph built after the
+     * commit is published. Changing a dependency's direction in place is rejected while the old direction is in the
+     * graph; delete and re-add it instead.
+     *
+     * @throws IllegalArgumentException naming the cycle the dependency would create
+     */
+    public void checkAcyclic(String parentCode, String childCode) {
+        SkillGraphSnapshot current = current();
+        SkillOrdinals ordinals = current.getOrdinals();
+        synchronized (pendingDependencies) {
+            int parent = ordinals.ordinal(parentCode);
+            int child = ordinals.ordinal(childCode);
+            // Fast path: nothing accepted since the build, so the precomputed closure answers it
+            if (pendingDependencies.isEmpty() && parent >= 0 && child >= 0 && parent != child
+                && !ordinals.descendants()[child].get(parent)) {
+                accept(new PendingDependency(parentCode, childCode));
+                return;
+            }
+            List<String> path = findPath(current, childCode, parentCode);
+            if (path != null) {
+                path.add(childCode);
+                throw new IllegalArgumentException("Dependency " + parentCode + " -> " + childCode
+                    + " would create the cycle " + String.join(" -> ", path));
+            }
+            accept(new PendingDependency(parentCode, childCode));
+        }
     }
 
-    public boolean hasCycles() {
-        if (skillGraph == null) {
-            buildSkillGraph();
+    private void accept(PendingDependency dependency) {
+        pendingDependencies.add(dependency);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dependency.committedAt = versions.get();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                // Stamp the commit before the change event asks for the rebuild that will contain it
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
 
-        try {
-            getTopologicalOrder();
-            return false;
-        } catch (Exception e) {
-            return true;
+            @Override
+            public void afterCommit() {
+                synchronized (pendingDependencies) {
+                    dependency.committedAt = versions.get();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                // Rolled back or unknown: the dependency may never be in a build, so stop checking it
+                if (status != STATUS_COMMITTED) {
+                    synchronized (pendingDependencies) {
+                        pendingDependencies.remove(dependency);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Breadth-first path of skill codes from {@code from} to {@code to} over the graph's dependencies
+     * and the pending ones; null if there is none.
+     */
+    private List<String> findPath(SkillGraphSnapshot graph, String from, String to) {
+        SkillOrdinals ordinals = graph.getOrdinals();
+        SkillGraphCore core = graph.getCore();
+        Map<String, List<String>> pending = new HashMap<>();
+        for (PendingDependency dependency : pendingDependencies) {
+            pending.computeIfAbsent(dependency.parentCode(), code -> new ArrayList<>()).add(dependency.childCode());
+        }
+        Map<String, String> previous = new HashMap<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        previous.put(from, null);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            String code = queue.poll();
+            if (code.equals(to)) {
+                LinkedList<String> path = new LinkedList<>();
+                for (String step = code; step != null; step = previous.get(step)) {
+                    path.addFirst(step);
+                }
+                return path;
+            }
+            List<String> next = new ArrayList<>(pending.getOrDefault(code, List.of()));
+            int v = ordinals.ordinal(code);
+            if (v >= 0) {
+                for (int k = core.outStart(v), end = core.outEnd(v); k < end; k++) {
+                    next.add(ordinals.code(core.child(k)));
+                }
+            }
+            for (String child : next) {
+                if (!previous.containsKey(child)) {
+                    previous.put(child, code);
+                    queue.add(child);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A dependency accepted by {@link #checkAcyclic}, with the last graph version assigned when its
+     * transaction committed; {@link Long#MAX_VALUE} until then. Guarded by the pending list's lock.
+     */
+    private static final class PendingDependency {
+        private final String parentCode;
+        private final String childCode;
+        private long committedAt = Long.MAX_VALUE;
+
+        private PendingDependency(String parentCode, String childCode) {
+            this.parentCode = parentCode;
+            this.childCode = childCode;
+        }
+
+        String parentCode() {
+            return parentCode;
+        }
+
+        String childCode() {
+            return childCode;
         }
     }
 
     public int getSkillLevel(String skillCode) {
-        List<String> prerequisites = getPrerequisiteSkills(skillCode);
-        return prerequisites.size() + 1; // Level based on number of prerequisites
+        SkillOrdinals current = getSkillOrdinals();
+        int ordinal = current.ordinal(skillCode);
+        return ordinal >= 0 ? current.levels()[ordinal] : 1;
+    }
+
+    /**
+     * Length of the longest prerequisite chain leading to the skill; 0 for a skill without prerequisites.
+     */
+    public int getSkillDepth(String skillCode) {
+        SkillOrdinals current = getSkillOrdinals();
+        int ordinal = current.ordinal(skillCode);
+        return ordinal >= 0 ? current.depths()[ordinal] : 0;
     }
 
     public Map<String, Integer> getSkillLevels() {
+        SkillOrdinals current = getSkillOrdinals();
         Map<String, Integer> levels = new HashMap<>();
-
-        if (skillGraph == null) {
-            buildSkillGraph();
+        for (int i = 0; i < current.size(); i++) {
+            levels.put(current.code(i), current.levels()[i]);
         }
-
-        skillGraph.vertexSet().forEach(skillCode -> {
-            levels.put(skillCode, getSkillLevel(skillCode));
-        });
-
         return levels;
     }
 }
@@ -0,0 +1,83 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.Skill;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One immutable build of the skill dependency graph. A new snapshot with a higher version replaces
+ * the previous one whenever skills or dependencies change, so readers never see a partly built graph
+ * and caches derived from the graph can key on the version.
+ */
+public final class SkillGraphSnapshot {
+
+    private final long version;
+    private final SkillGraphCore core;
+    private final Map<String, SkillInfo> skills;
+    private final SkillGraphService.SkillOrdinals ordinals;
+    private final List<String> topologicalOrder;
+    private final List<List<String>> cycles;
+
+    SkillGraphSnapshot(long version, SkillGraphCore core, Map<String, SkillInfo> skills,
+                       SkillGraphService.SkillOrdinals ordinals, List<String> topologicalOrder,
+                       List<List<String>> cycles) {
+        this.version = version;
+        this.core = core;
+        this.skills = skills;
+        this.ordinals = ordinals;
+        this.topologicalOrder = topologicalOrder;
+        this.cycles = cycles;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The dependency graph (parent -> child) over the ordinals of {@link #getOrdinals()}.
+     */
+    public SkillGraphCore getCore() {
+        return core;
+    }
+
+    /**
+     * Skills by code as loaded for this build; read-only.
+     */
+    public Map<String, SkillInfo> getSkills() {
+        return skills;
+    }
+
+    public SkillGraphService.SkillOrdinals getOrdinals() {
+        return ordinals;
+    }
+
+    /**
+     * Skill codes with every prerequisite before its dependents; skills on or below a cycle are
+     * missing. Read-only.
+     */
+    public List<String> getTopologicalOrder() {
+        return topologicalOrder;
+    }
+
+    /**
+     * Skill codes of every cycle, one list per strongly connected component with more than one skill
+     * or a skill depending on itself; empty for a valid graph. Read-only.
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * Immutable copy of the skill fields graph readers need, so a snapshot shared by all threads never
+     * hands out a managed entity.
+     */
+    public record SkillInfo(Long id, String skillCode, String displayName, Skill.Category category,
+                            double importanceWeight) {
+
+        public static SkillInfo of(Skill skill) {
+            return new SkillInfo(skill.getId(), skill.getSkillCode(), skill.getDisplayName(), skill.getCategory(),
+                skill.getImportanceWeight() != null ? skill.getImportanceWeight() : 1.0);
+        }
+    }
+}
@@ -2,20 +2,24 @@ package com.skillmap.service.engine;
 
 import com.skillmap.model.entity.AssessmentSession;
 import com.skillmap.model.entity.Response;
-import com.skillmap.model.entity.ResumeData;
 import com.skillmap.model.entity.Skill;
 import com.skillmap.model.entity.SkillAssessment;
 import com.skillmap.repository.ResponseRepository;
 import com.skillmap.repository.SkillAssessmentRepository;
 import com.skillmap.repository.SkillRepository;
-import com.skillmap.repository.ResumeDataRepository;
-import com.skillmap.service.analysis.SymbolicValidationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import jakarta.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,12 +31,14 @@ public class SkillInferenceEngine {
     private final ResponseRepository responseRepository;
     private final SkillAssessmentRepository skillAssessmentRepository;
     private final SkillGraphService skillGraphService;
-    private final ResumeDataRepository resumeDataRepository;
-    private final SymbolicValidationService symbolicValidationService;
+    private final SessionStateService sessionStateService;
+    private final ResumePriorService resumePriorService;
+    private final SkillEvidenceService skillEvidenceService;
 
     // Bayesian belief propagation for skill inference
-    private Map<String, Map<String, Double>> skillCorrelations = new HashMap<>();
-    private volatile boolean correlationsBuilt = false;
+    private final AtomicReference<SkillCorrelationMatrix> correlations = new AtomicReference<>();
+    private final AtomicLong skillChanges = new AtomicLong();
+    private volatile long correlationsBuiltAtChange = -1;
 
     @PostConstruct
     public void initialize() {
@@ -40,93 +46,153 @@ public class SkillInferenceEngine {
         // Build correlations lazily to avoid session issues
     }
 
-    private synchronized void ensureSkillCorrelationsBuilt() {
-        if (!correlationsBuilt) {
-            buildSkillCorrelations();
-            correlationsBuilt = true;
+    /**
+     * Correlation matrix for the current skill graph, rebuilt on first use after a skill change or a graph rebuild.
+     */
+    private SkillCorrelationMatrix correlationMatrix() {
+        SkillGraphService.SkillOrdinals ordinals = skillGraphService.getSkillOrdinals();
+        SkillCorrelationMatrix current = correlations.get();
+        if (current == null || correlationsBuiltAtChange != skillChanges.get() || current.getOrdinals() != ordinals) {
+            synchronized (this) {
+                ordinals = skillGraphService.getSkillOrdinals();
+                current = correlations.get();
+                if (current == null || correlationsBuiltAtChange != skillChanges.get()
+                    || current.getOrdinals() != ordinals) {
+                    // Read before loading: a skill change committed during the build leaves it stale, and a
+                    // failed build leaves it stale for the next use
+                    long change = skillChanges.get();
+                    current = buildSkillCorrelations(ordinals);
+                    correlations.set(current);
+                    correlationsBuiltAtChange = change;
+                }
+            }
         }
+        return current;
     }
 
-    private void buildSkillCorrelations() {
-        log.info("Building skill correlations");
+    private SkillCorrelationMatrix buildSkillCorrelations(SkillGraphService.SkillOrdinals ordinals) {
+        SkillCorrelationMatrix matrix = SkillCorrelationMatrix.build(ordinals, skillRepository.findAll());
+        log.info("Built skill correlations: {} skills, {} correlations", ordinals.size(), matrix.nonZeros());
+        return matrix;
+    }
 
-        skillRepository.findAll().forEach(skill -> {
-            Map<String, Double> correlations = new HashMap<>();
-
-            // Correlate with prerequisites and dependents
-            List<String> prerequisites = skillGraphService.getPrerequisiteSkills(skill.getSkillCode());
-            List<String> dependents = skillGraphService.getDependentSkills(skill.getSkillCode());
-
-            prerequisites.forEach(prereq -> correlations.put(prereq, 0.7));
-            dependents.forEach(dependent -> correlations.put(dependent, 0.6));
-
-            // Add domain correlations (simplified)
-            if (skill.getCategory() != null) {
-                skillRepository.findByCategory(skill.getCategory()).forEach(relatedSkill -> {
-                    if (!relatedSkill.getSkillCode().equals(skill.getSkillCode())) {
-                        correlations.put(relatedSkill.getSkillCode(), 0.4);
-                    }
-                });
-            }
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(QuestionCatalogChangedEvent event) {
+        if (Skill.class.getSimpleName().equals(event.entityType())) {
+            skillChanges.incrementAndGet();
+        }
+    }
 
-            skillCorrelations.put(skill.getSkillCode(), correlations);
-        });
+    /**
+     * Correlations used by belief propagation, shared with replays of {@link BeliefFold}.
+     */
+    SkillCorrelationMatrix getCorrelationMatrix() {
+        return correlationMatrix();
     }
 
+    /**
+     * Apply one response to the session's skill assessments: the answered skill directly, correlated
+     * skills by propagation. All of the session's assessments are loaded once, updated in memory and
+     * written back with one batched saveAll, in a single transaction.
+     */
+    @Transactional
     public void updateBeliefsFromResponse(Response response) {
         log.info("Updating beliefs from response: {}", response.getId());
 
         // Ensure skill correlations are built before processing
-        ensureSkillCorrelationsBuilt();
+        SkillCorrelationMatrix matrix = correlationMatrix();
 
         AssessmentSession session = response.getSession();
         Skill skill = response.getQuestion().getSkill();
         double responseScore = calculateResponseScore(response);
 
+        // Every assessment of this session, keyed by skill code, with skills fetched in the same query
+        // and indexed by skill ordinal for propagation
+        Map<String, SkillAssessment> assessments = new HashMap<>();
+        SkillAssessment[] byOrdinal = new SkillAssessment[matrix.getOrdinals().size()];
+        for (SkillAssessment existing : skillAssessmentRepository.findBySessionIdWithSkill(session.getId())) {
+            String skillCode = existing.getSkill().getSkillCode();
+            assessments.put(skillCode, existing);
+            int ordinal = matrix.getOrdinals().ordinal(skillCode);
+            if (ordinal >= 0) {
+                byOrdinal[ordinal] = existing;
+            }
+        }
+        Map<String, SkillAssessment> changed = new LinkedHashMap<>();
+
         // Get or create skill assessment for this session and skill
-        SkillAssessment assessment = skillAssessmentRepository
-            .findBySessionAndSkill(session, skill)
-            .orElse(new SkillAssessment());
+        SkillAssessment assessment = assessments.get(skill.getSkillCode());
 
-        if (assessment.getId() == null) {
+        if (assessment == null) {
             // New assessment
+            assessment = new SkillAssessment();
             assessment.setSession(session);
             assessment.setSkill(skill);
             assessment.setAssessedLevel(responseScore);
-            assessment.setConfidenceScore(0.5); // Initial confidence
+            assessment.setConfidenceScore(BeliefFold.INITIAL_CONFIDENCE); // Initial confidence
+            assessments.put(skill.getSkillCode(), assessment);
         } else {
             // Update existing assessment with weighted average
             double currentLevel = assessment.getAssessedLevel();
             double currentConfidence = assessment.getConfidenceScore();
-            double newLevel = (currentLevel * currentConfidence + responseScore * 0.5) / (currentConfidence + 0.5);
-            double newConfidence = Math.min(currentConfidence + 0.1, 1.0); // Increase confidence
+            double newLevel = BeliefFold.directLevel(currentLevel, currentConfidence, responseScore);
+            double newConfidence = BeliefFold.directConfidence(currentConfidence); // Increase confidence
 
             assessment.setAssessedLevel(newLevel);
             assessment.setConfidenceScore(newConfidence);
         }
 
-        // Update evidence
-        String evidenceIds = assessment.getEvidenceResponseIds();
-        if (evidenceIds == null) {
-            evidenceIds = "[" + response.getId() + "]";
-        } else {
-            evidenceIds = evidenceIds.replace("]", "," + response.getId() + "]");
-        }
-        assessment.setEvidenceResponseIds(evidenceIds);
-
-        skillAssessmentRepository.save(assessment);
+        changed.put(skill.getSkillCode(), assessment);
+        Map<String, Double> evidenceWeights = new LinkedHashMap<>();
+        evidenceWeights.put(skill.getSkillCode(), 1.0);
 
         // Propagate to correlated skills
-        propagateBeliefs(session, skill.getSkillCode(), responseScore);
+        propagateBeliefs(matrix, byOrdinal, changed, evidenceWeights, skill.getSkillCode(), responseScore);
+
+        skillAssessmentRepository.saveAll(changed.values());
+
+        // Append one evidence row per updated assessment; ids are assigned by now
+        List<SkillEvidenceService.Entry> evidence = new ArrayList<>(changed.size());
+        changed.forEach((skillCode, updated) ->
+            evidence.add(new SkillEvidenceService.Entry(updated.getId(), response.getId(), evidenceWeights.get(skillCode))));
+        skillEvidenceService.appendAll(evidence);
+
+        // Cached beliefs for this session are stale once the update commits; invalidating earlier would
+        // let a concurrent read cache the old rows under the new version
+        Long sessionId = session.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sessionStateService.invalidateBeliefs(sessionId);
+                }
+            });
+        } else {
+            sessionStateService.invalidateBeliefs(sessionId);
+        }
     }
 
     private double calculateResponseScore(Response response) {
+        return scoreResponse(
+            response.getQuestion().getQuestionType(),
+            response.getIsCorrect(),
+            response.getSpecificityScore(),
+            response.getResponseText() != null ? response.getResponseText().length() : null,
+            response.getDepthScore());
+    }
+
+    /**
+     * Score of one answer in [0, 1] from its stored metrics. Static so the session state can score
+     * answers from a projection without loading the response entity.
+     */
+    public static double scoreResponse(String questionType, Boolean isCorrect, Double specificityScore,
+                                       Integer textLength, Double depthScore) {
         // Calculate score based on response quality metrics
         double score = 0.0;
 
         // For MCQ questions, use correctness as primary score
-        if ("mcq".equals(response.getQuestion().getQuestionType())) {
-            if (response.getIsCorrect() != null && response.getIsCorrect()) {
+        if ("mcq".equals(questionType)) {
+            if (isCorrect != null && isCorrect) {
                 score = 1.0; // Full score for correct MCQ answer
             } else {
                 score = 0.0; // No score for incorrect MCQ answer
@@ -134,72 +200,73 @@ public class SkillInferenceEngine {
         } else {
             // For text questions, use traditional scoring
             // Base score from specificity and depth scores
-            if (response.getSpecificityScore() != null) {
-                score += response.getSpecificityScore() * 0.3;
+            if (specificityScore != null) {
+                score += specificityScore * 0.3;
             }
 
             // Score from response length and detail
-            if (response.getResponseText() != null) {
-                int length = response.getResponseText().length();
-                score += Math.min(length / 500.0, 1.0) * 0.4; // Up to 0.4 for detailed responses
+            if (textLength != null) {
+                score += Math.min(textLength / 500.0, 1.0) * 0.4; // Up to 0.4 for detailed responses
             }
 
             // Score from analysis metrics (if available)
-            if (response.getDepthScore() != null) {
-                score += response.getDepthScore() * 0.3;
+            if (depthScore != null) {
+                score += depthScore * 0.3;
             }
         }
 
         return Math.min(score, 1.0);
     }
 
-    private void propagateBeliefs(AssessmentSession session, String sourceSkill, double evidence) {
-        Map<String, Double> correlations = skillCorrelations.get(sourceSkill);
-
-        if (correlations != null) {
-            correlations.forEach((targetSkillCode, correlation) -> {
-                Optional<Skill> targetSkillOpt = skillRepository.findBySkillCode(targetSkillCode);
-                if (targetSkillOpt.isPresent()) {
-                    Skill targetSkill = targetSkillOpt.get();
-                    double propagatedEvidence = evidence * correlation * 0.5; // Reduce propagation strength
-
-                    SkillAssessment assessment = skillAssessmentRepository
-                        .findBySessionAndSkill(session, targetSkill)
-                        .orElse(null);
-
-                    if (assessment != null) {
-                        // Only update existing assessments with propagated evidence
-                        double currentLevel = assessment.getAssessedLevel();
-                        double currentConfidence = assessment.getConfidenceScore();
-                        double newLevel = (currentLevel * currentConfidence + propagatedEvidence * 0.3) /
-                                        (currentConfidence + 0.3);
-                        assessment.setAssessedLevel(newLevel);
-                        skillAssessmentRepository.save(assessment);
-                    }
-                    // Do not create new assessments for propagated beliefs
-                }
-            });
+    private void propagateBeliefs(SkillCorrelationMatrix matrix, SkillAssessment[] byOrdinal,
+                                  Map<String, SkillAssessment> changed, Map<String, Double> evidenceWeights,
+                                  String sourceSkill, double evidence) {
+        int source = matrix.getOrdinals().ordinal(sourceSkill);
+        if (source < 0) {
+            return;
+        }
+
+        for (int k = matrix.rowStart(source), end = matrix.rowEnd(source); k < end; k++) {
+            // Only update existing assessments with propagated evidence
+            SkillAssessment assessment = byOrdinal[matrix.col(k)];
+            if (assessment != null && assessment.getId() != null) {
+                double strength = BeliefFold.propagationStrength(matrix.weight(k)); // Reduce propagation strength
+
+                double currentLevel = assessment.getAssessedLevel();
+                double currentConfidence = assessment.getConfidenceScore();
+                double newLevel = BeliefFold.propagatedLevel(currentLevel, currentConfidence, evidence, matrix.weight(k));
+                assessment.setAssessedLevel(newLevel);
+                String targetSkillCode = matrix.getOrdinals().code(matrix.col(k));
+                changed.put(targetSkillCode, assessment);
+                evidenceWeights.put(targetSkillCode, strength);
+            }
+            // Do not create new assessments for propagated beliefs
         }
     }
 
     public Map<String, Double> getSkillBeliefs(AssessmentSession session) {
+        Map<String, Double> cached = sessionStateService.getBeliefs(session.getId());
+        if (cached != null) {
+            return cached;
+        }
+        // Get resume-based priors, computed once per resume and kept in the session state
+        ResumePriors resumePriors = resumePriorService.getPriors(session.getId());
+        long version = sessionStateService.getBeliefVersion(session.getId());
+
         List<SkillAssessment> assessments = skillAssessmentRepository.findBySession(session);
         Map<String, Double> beliefs = new HashMap<>();
 
-        // Get resume-based priors
-        Map<String, Double> resumePriors = getResumeSkillPriors(session);
-
         // Initialize all skills with resume priors or neutral belief
-        skillRepository.findAll().forEach(skill -> {
-            String skillCode = skill.getSkillCode();
-            double prior = resumePriors.getOrDefault(skillCode, 0.5);
-            beliefs.put(skillCode, prior);
-        });
+        SkillGraphService.SkillOrdinals ordinals = skillGraphService.getSkillOrdinals();
+        for (int i = 0; i < ordinals.size(); i++) {
+            String skillCode = ordinals.code(i);
+            beliefs.put(skillCode, resumePriors.prior(skillCode));
+        }
 
         // Update with assessment evidence using Bayesian inference
         assessments.forEach(assessment -> {
             String skillCode = assessment.getSkill().getSkillCode();
-            double prior = resumePriors.getOrDefault(skillCode, 0.5);
+            double prior = resumePriors.prior(skillCode);
             double evidence = assessment.getAssessedLevel();
             double confidence = assessment.getConfidenceScore();
 
@@ -208,7 +275,25 @@ public class SkillInferenceEngine {
             beliefs.put(skillCode, posterior);
         });
 
-        return beliefs;
+        sessionStateService.setBeliefs(session.getId(), beliefs, version);
+        return Collections.unmodifiableMap(beliefs);
+    }
+
+    /**
+     * Assessed level of every skill for the session, read with one query, as used by
+     * {@link #getSkillBelief(AssessmentSession, String)}.
+     */
+    public BeliefSnapshot getBeliefSnapshot(AssessmentSession session) {
+        SkillGraphService.SkillOrdinals ordinals = skillGraphService.getSkillOrdinals();
+        double[] beliefs = new double[ordinals.size()];
+        Arrays.fill(beliefs, BeliefSnapshot.NEUTRAL_BELIEF);
+        for (Object[] row : skillAssessmentRepository.findSkillLevelsBySessionId(session.getId())) {
+            int ordinal = ordinals.ordinal((String) row[0]);
+            if (ordinal >= 0 && row[1] != null) {
+                beliefs[ordinal] = ((Number) row[1]).doubleValue();
+            }
+        }
+        return new BeliefSnapshot(ordinals, beliefs);
     }
 
     public double getSkillBelief(AssessmentSession session, String skillCode) {
@@ -265,44 +350,4 @@ public class SkillInferenceEngine {
     public double getSkillBelief(String skillCode) {
         return 0.5;
     }
-
-    /**
-     * Extracts skill priors from resume data for Bayesian inference
-     * @param session the assessment session
-     * @return map of skill codes to prior probabilities (0.8 for present skills, 0.2 for absent)
-     */
-    private Map<String, Double> getResumeSkillPriors(AssessmentSession session) {
-        Map<String, Double> priors = new HashMap<>();
-
-        // Get resume data for the session
-        List<ResumeData> resumeDataList = resumeDataRepository.findBySessionId(session.getId());
-
-        if (!resumeDataList.isEmpty()) {
-            // Use the most recent resume data
-            ResumeData resumeData = resumeDataList.get(0);
-
-            // Extract verified skills from resume
-            Set<String> resumeSkills = symbolicValidationService.extractVerifiedSkills(resumeData);
-
-            // Get all system skills for comparison
-            List<Skill> allSkills = skillRepository.findAll();
-
-            // Set priors based on resume presence
-            for (Skill skill : allSkills) {
-                String skillName = skill.getSkillCode().toLowerCase();
-                boolean skillPresent = resumeSkills.stream()
-                    .anyMatch(resumeSkill -> resumeSkill.toLowerCase().contains(skillName) ||
-                                             skillName.contains(resumeSkill.toLowerCase()));
-
-                // High prior for skills present in resume, low prior for absent skills
-                priors.put(skill.getSkillCode(), skillPresent ? 0.8 : 0.2);
-            }
-
-            log.info("Extracted {} resume skills as priors for session {}", resumeSkills.size(), session.getId());
-        } else {
-            log.debug("No resume data found for session {}, using neutral priors", session.getId());
-        }
-
-        return priors;
-    }
 }
@@ -1,23 +1,25 @@
 package com.skillmap.service.engine;
 
 import com.skillmap.model.entity.AssessmentSession;
-import com.skillmap.model.entity.Response;
-import com.skillmap.repository.ResponseRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class StoppingCriteriaService {
 
-    private final ResponseRepository responseRepository;
+    private final SessionStateService sessionStateService;
+    private final IrtSelectionService irtSelectionService;
     private final SkillInferenceEngine skillInferenceEngine;
+    private final SequentialProbabilityRatioTest sprt;
+    private final boolean sprtEnabled;
+    private final int sprtMinSkills;
+    private final double sprtDecidedRatio;
 
     // Configuration constants
     private static final int MIN_QUESTIONS = 10;
@@ -26,66 +28,122 @@ public class StoppingCriteriaService {
     private static final double CONFIDENCE_THRESHOLD = 0.7;
     private static final double SKILL_COVERAGE_THRESHOLD = 0.6;
 
-    public boolean shouldStopAssessment(AssessmentSession session) {
+    public StoppingCriteriaService(
+            SessionStateService sessionStateService,
+            IrtSelectionService irtSelectionService,
+            SkillInferenceEngine skillInferenceEngine,
+            @Value("${assessment.sprt.enabled:true}") boolean sprtEnabled,
+            @Value("${assessment.sprt.p0:0.4}") double p0,
+            @Value("${assessment.sprt.p1:0.7}") double p1,
+            @Value("${assessment.sprt.alpha:0.05}") double alpha,
+            @Value("${assessment.sprt.beta:0.1}") double beta,
+            @Value("${assessment.sprt.min-skills:2}") int sprtMinSkills,
+            @Value("${assessment.sprt.decided-ratio:0.8}") double sprtDecidedRatio
+    ) {
+        this.sessionStateService = sessionStateService;
+        this.irtSelectionService = irtSelectionService;
+        this.skillInferenceEngine = skillInferenceEngine;
+        this.sprt = new SequentialProbabilityRatioTest(p0, p1, alpha, beta);
+        this.sprtEnabled = sprtEnabled;
+        this.sprtMinSkills = sprtMinSkills;
+        this.sprtDecidedRatio = sprtDecidedRatio;
+    }
+
+    /**
+     * Outcome of one evaluation: whether to stop, why, and the status metrics the criteria were computed from.
+     */
+    public record StoppingDecision(boolean shouldStop, AssessmentStopReason reason, Map<String, Object> status) {
+    }
+
+    /**
+     * Evaluate every criterion once from the session state. Prefer this over calling
+     * {@link #shouldStopAssessment}, {@link #getStopReason} and {@link #getStoppingCriteriaStatus} in turn.
+     */
+    public StoppingDecision evaluate(AssessmentSession session) {
         log.debug("Evaluating stopping criteria for session: {}", session.getId());
+        StoppingContext context = new StoppingContext(session);
+        AssessmentStopReason reason = decide(context);
+        Map<String, Object> status = buildStatus(context);
+        status.put("shouldStop", reason != null);
+        return new StoppingDecision(reason != null, reason != null ? reason : AssessmentStopReason.UNKNOWN, status);
+    }
+
+    public boolean shouldStopAssessment(AssessmentSession session) {
+        return decide(new StoppingContext(session)) != null;
+    }
 
-        List<Response> responses = responseRepository.findBySessionId(session.getId());
+    public AssessmentStopReason getStopReason(AssessmentSession session) {
+        AssessmentStopReason reason = decide(new StoppingContext(session));
+        return reason != null ? reason : AssessmentStopReason.UNKNOWN;
+    }
 
-        // Always continue if minimum questions not reached
-        if (responses.size() < MIN_QUESTIONS) {
-            log.debug("Continuing: minimum questions not reached ({}/{})", responses.size(), MIN_QUESTIONS);
-            return false;
-        }
+    public Map<String, Object> getStoppingCriteriaStatus(AssessmentSession session) {
+        return evaluate(session).status();
+    }
+
+    /**
+     * Reason to stop, or null to continue.
+     */
+    private AssessmentStopReason decide(StoppingContext context) {
+        int answered = context.answered;
+        int minQuestions = minQuestions();
 
         // Stop if maximum questions reached
-        if (responses.size() >= MAX_QUESTIONS) {
-            log.debug("Stopping: maximum questions reached ({})", responses.size());
-            return true;
+        if (answered >= MAX_QUESTIONS) {
+            log.debug("Stopping: maximum questions reached ({})", answered);
+            return AssessmentStopReason.MAX_QUESTIONS_REACHED;
         }
 
         // Stop if time limit exceeded
-        if (hasExceededTimeLimit(responses)) {
+        if (answered >= minQuestions && context.totalTimeSeconds > MAX_TIME_MINUTES * 60L) {
             log.debug("Stopping: time limit exceeded");
-            return true;
+            return AssessmentStopReason.TIME_LIMIT_EXCEEDED;
+        }
+
+        // Always continue if minimum questions not reached
+        if (answered < minQuestions) {
+            log.debug("Continuing: minimum questions not reached ({}/{})", answered, minQuestions);
+            return null;
         }
 
         // Stop if sufficient confidence achieved
-        if (hasSufficientConfidence()) {
+        if (hasSufficientConfidence(context)) {
             log.debug("Stopping: sufficient confidence achieved");
-            return true;
+            return AssessmentStopReason.SUFFICIENT_CONFIDENCE;
         }
 
         // Stop if good skill coverage achieved
-        if (hasGoodSkillCoverage(session)) {
+        if (hasGoodSkillCoverage(context)) {
             log.debug("Stopping: good skill coverage achieved");
-            return true;
+            return AssessmentStopReason.GOOD_COVERAGE;
         }
 
         // Continue assessment
         log.debug("Continuing assessment - no stopping criteria met");
-        return false;
+        return null;
     }
 
-    private boolean hasExceededTimeLimit(List<Response> responses) {
-        int totalTimeSeconds = responses.stream()
-            .mapToInt(response -> response.getTotalTimeSeconds() != null ? response.getTotalTimeSeconds() : 0)
-            .sum();
-
-        int maxTimeSeconds = MAX_TIME_MINUTES * 60;
-        return totalTimeSeconds > maxTimeSeconds;
+    private int minQuestions() {
+        return irtSelectionService.isEnabled() ? irtSelectionService.getMinQuestions() : MIN_QUESTIONS;
     }
 
-    private boolean hasSufficientConfidence() {
-        // Note: This method needs session context to work properly
-        // For now, return false to avoid using deprecated method
-        return false;
+    private boolean hasSufficientConfidence(StoppingContext context) {
+        // IRT mode: standard error of the ability estimate
+        if (irtSelectionService.isEnabled()) {
+            return irtSelectionService.isPrecise(context.state);
+        }
+        // Otherwise: enough of the tested skills are decided by the SPRT on their answer scores
+        if (!sprtEnabled) {
+            return false;
+        }
+        SkillEvidence evidence = context.skillEvidence();
+        return evidence.decided >= sprtMinSkills && (double) evidence.decided / evidence.tested >= sprtDecidedRatio;
     }
 
-    private boolean hasGoodSkillCoverage(AssessmentSession session) {
-        Map<String, Double> skillBeliefs = skillInferenceEngine.getSkillBeliefs(session);
-
+    private boolean hasGoodSkillCoverage(StoppingContext context) {
         // For targeted assessments, check coverage of relevant skills
-        if (session.getTargetRole() != null) {
+        if (context.session.getTargetRole() != null) {
+            Map<String, Double> skillBeliefs = context.beliefs();
             long relevantSkills = skillBeliefs.size(); // Simplified - all skills are relevant
             long assessedSkills = skillBeliefs.values().stream()
                 .filter(belief -> belief != 0.5) // Not neutral
@@ -98,41 +156,15 @@ public class StoppingCriteriaService {
         return false;
     }
 
-    public AssessmentStopReason getStopReason(AssessmentSession session) {
-        List<Response> responses = responseRepository.findBySessionId(session.getId());
-
-        if (responses.size() >= MAX_QUESTIONS) {
-            return AssessmentStopReason.MAX_QUESTIONS_REACHED;
-        }
-
-        if (hasExceededTimeLimit(responses)) {
-            return AssessmentStopReason.TIME_LIMIT_EXCEEDED;
-        }
-
-        if (hasSufficientConfidence()) {
-            return AssessmentStopReason.SUFFICIENT_CONFIDENCE;
-        }
-
-        if (hasGoodSkillCoverage(session)) {
-            return AssessmentStopReason.GOOD_COVERAGE;
-        }
-
-        return AssessmentStopReason.UNKNOWN;
-    }
-
-    public Map<String, Object> getStoppingCriteriaStatus(AssessmentSession session) {
-        List<Response> responses = responseRepository.findBySessionId(session.getId());
-        Map<String, Double> skillBeliefs = skillInferenceEngine.getSkillBeliefs(session);
+    private Map<String, Object> buildStatus(StoppingContext context) {
+        Map<String, Double> skillBeliefs = context.beliefs();
 
         Map<String, Object> status = new HashMap<>();
-        status.put("questionsAnswered", responses.size());
-        status.put("minQuestions", MIN_QUESTIONS);
+        status.put("questionsAnswered", context.answered);
+        status.put("minQuestions", minQuestions());
         status.put("maxQuestions", MAX_QUESTIONS);
 
-        int totalTimeSeconds = responses.stream()
-            .mapToInt(response -> response.getTotalTimeSeconds() != null ? response.getTotalTimeSeconds() : 0)
-            .sum();
-        status.put("totalTimeMinutes", totalTimeSeconds / 60.0);
+        status.put("totalTimeMinutes", context.totalTimeSeconds / 60.0);
         status.put("maxTimeMinutes", MAX_TIME_MINUTES);
 
         // Confidence metrics
@@ -151,11 +183,93 @@ public class StoppingCriteriaService {
         status.put("coverageRatio", coverageRatio);
         status.put("coverageThreshold", SKILL_COVERAGE_THRESHOLD);
 
-        status.put("shouldStop", shouldStopAssessment(session));
+        // Sequential test metrics
+        if (sprtEnabled) {
+            SkillEvidence evidence = context.skillEvidence();
+            status.put("sprtTestedSkills", evidence.tested);
+            status.put("sprtDecidedSkills", evidence.decided);
+            status.put("sprtMinDecidedSkills", sprtMinSkills);
+            status.put("sprtDecidedRatioThreshold", sprtDecidedRatio);
+            status.put("skillDecisions", evidence.outcomes);
+        }
+
+        // Ability estimate metrics
+        status.put("selectionMode", irtSelectionService.getSelectionMode());
+        if (irtSelectionService.isEnabled()) {
+            IrtModel.AbilityEstimate ability = irtSelectionService.overallAbility(context.state);
+            status.put("abilityEstimate", ability.theta());
+            status.put("standardError", ability.standardError());
+            status.put("standardErrorTarget", irtSelectionService.getStandardErrorTarget());
+            Map<String, Double> skillAbilities = new HashMap<>();
+            irtSelectionService.skillAbilities(context.state).forEach((skill, estimate) -> skillAbilities.put(skill, estimate.theta()));
+            status.put("skillAbilities", skillAbilities);
+        }
 
         return status;
     }
 
+    /**
+     * Everything the criteria read for one evaluation. Beliefs and SPRT evidence are computed on first use
+     * and then shared, so no criterion reloads them.
+     */
+    private final class StoppingContext {
+        private final AssessmentSession session;
+        private final AssessmentSessionState state;
+        private final int answered;
+        private final long totalTimeSeconds;
+        private Map<String, Double> beliefs;
+        private SkillEvidence skillEvidence;
+
+        StoppingContext(AssessmentSession session) {
+            this.session = session;
+            this.state = sessionStateService.get(session);
+            this.answered = state.getAnsweredCount();
+            this.totalTimeSeconds = state.getTotalTimeSeconds();
+        }
+
+        Map<String, Double> beliefs() {
+            if (beliefs == null) {
+                beliefs = skillInferenceEngine.getSkillBeliefs(session);
+            }
+            return beliefs;
+        }
+
+        SkillEvidence skillEvidence() {
+            if (skillEvidence == null) {
+                skillEvidence = SkillEvidence.of(state, sprt);
+            }
+            return skillEvidence;
+        }
+    }
+
+    /**
+     * SPRT outcome of every tested skill, from the raw scores of its answers: each answer is one trial and
+     * its score in [0, 1] the (fractional) success. Beliefs are not used, as they already fold in the
+     * same answers.
+     */
+    private record SkillEvidence(int tested, int decided, Map<String, SequentialProbabilityRatioTest.Outcome> outcomes) {
+
+        static SkillEvidence of(AssessmentSessionState state, SequentialProbabilityRatioTest sprt) {
+            Map<String, double[]> totals = new LinkedHashMap<>(); // skill -> {successes, trials}
+            for (AssessmentSessionState.ItemObservation observation : state.getObservations()) {
+                if (observation.skillCode() == null) continue;
+                double[] t = totals.computeIfAbsent(observation.skillCode(), k -> new double[2]);
+                t[0] += observation.score();
+                t[1] += 1;
+            }
+            Map<String, SequentialProbabilityRatioTest.Outcome> outcomes = new LinkedHashMap<>();
+            int decided = 0;
+            for (Map.Entry<String, double[]> entry : totals.entrySet()) {
+                SequentialProbabilityRatioTest.Outcome outcome = sprt.decide(entry.getValue()[0], entry.getValue()[1]);
+                outcomes.put(entry.getKey(), outcome);
+                if (outcome != SequentialProbabilityRatioTest.Outcome.UNDECIDED) {
+                    decided++;
+                }
+            }
+            return new SkillEvidence(totals.size(), decided, outcomes);
+        }
+    }
+
     public enum AssessmentStopReason {
         MAX_QUESTIONS_REACHED,
         TIME_LIMIT_EXCEEDED,
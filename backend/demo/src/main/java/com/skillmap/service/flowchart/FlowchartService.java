@@ -1,84 +1,122 @@
 package com.skillmap.service.flowchart;
 
-import com.skillmap.model.entity.AssessmentSession;
-import com.skillmap.model.entity.Skill;
-import com.skillmap.model.entity.SkillAssessment;
-import com.skillmap.model.entity.SkillDependency;
 import com.skillmap.repository.AssessmentSessionRepository;
 import com.skillmap.repository.SkillAssessmentRepository;
-import com.skillmap.repository.SkillDependencyRepository;
-import com.skillmap.repository.SkillRepository;
+import com.skillmap.service.engine.SkillGraphService;
+import com.skillmap.service.engine.SkillGraphSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Skill flowchart of a session: the cached {@link FlowchartTopology} of the current skill graph
+ * merged with the session's per-skill status, which is the only part computed per request.
+ */
 @Service
 @RequiredArgsConstructor
 public class FlowchartService {
 
-    private final SkillRepository skillRepository;
-    private final SkillDependencyRepository skillDependencyRepository;
+    private final SkillGraphService skillGraphService;
     private final SkillAssessmentRepository skillAssessmentRepository;
     private final AssessmentSessionRepository assessmentSessionRepository;
 
+    private final AtomicReference<FlowchartTopology> topology = new AtomicReference<>();
+
+    /**
+     * Topology for the current graph version, rebuilt only when the graph version changes.
+     */
+    public FlowchartTopology getTopology() {
+        SkillGraphSnapshot graph = skillGraphService.current();
+        FlowchartTopology cached = topology.get();
+        if (cached != null && cached.getGraphVersion() == graph.getVersion()) {
+            return cached;
+        }
+        // Concurrent builds for the same version produce the same topology, so the last write can win
+        FlowchartTopology built = FlowchartTopology.build(graph);
+        topology.set(built);
+        return built;
+    }
+
+    /**
+     * Per-skill status of the session, to merge into a cached topology; null if the session does not exist.
+     */
+    public Map<String, Object> buildStatusOverlay(Long sessionId) {
+        if (!assessmentSessionRepository.existsById(sessionId)) return null;
+        FlowchartTopology topology = getTopology();
+        Map<String, Double> levels = assessedLevels(sessionId);
+
+        Map<String, Object> statuses = new LinkedHashMap<>();
+        for (Map<String, Object> node : topology.getNodes()) {
+            String code = (String) node.get("id");
+            double level = levels.getOrDefault(code, 0.5);
+            String status = statusOf(level);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", status);
+            entry.put("level", level);
+            entry.put("action", recommendedAction(status));
+            statuses.put(code, entry);
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("sessionId", sessionId);
+        out.put("topologyEtag", topology.getEtag());
+        out.put("statuses", statuses);
+        return out;
+    }
+
     public Map<String, Object> buildFlowchart(Long sessionId) {
-        AssessmentSession session = assessmentSessionRepository.findById(sessionId).orElse(null);
-        if (session == null) return Map.of("nodes", List.of(), "edges", List.of());
+        if (!assessmentSessionRepository.existsById(sessionId)) return Map.of("nodes", List.of(), "edges", List.of());
+        FlowchartTopology topology = getTopology();
 
         // Load assessed levels
-        List<SkillAssessment> assessments = skillAssessmentRepository.findBySession(session);
-        Map<Long, Double> skillLevelById = new HashMap<>();
-        for (SkillAssessment a : assessments) {
-            skillLevelById.put(a.getSkill().getId(), a.getAssessedLevel());
-        }
+        Map<String, Double> levels = assessedLevels(sessionId);
 
-        // Nodes: each skill mapped to status
-        List<Map<String, Object>> nodes = new ArrayList<>();
-        for (Skill s : skillRepository.findAll()) {
-            double level = skillLevelById.getOrDefault(s.getId(), 0.5);
-            String status = level < 0.4 ? "weak" : (level < 0.7 ? "moderate" : "strong");
-            Map<String, Object> node = new LinkedHashMap<>();
-            node.put("id", s.getSkillCode());
-            node.put("label", s.getDisplayName());
+        // Nodes: cached topology node plus the session's status
+        List<Map<String, Object>> nodes = new ArrayList<>(topology.getNodes().size());
+        List<Map<String, Object>> list = new ArrayList<>(topology.getNodes().size());
+        for (Map<String, Object> topologyNode : topology.getNodes()) {
+            String code = (String) topologyNode.get("id");
+            double level = levels.getOrDefault(code, 0.5);
+            String status = statusOf(level);
+            Map<String, Object> node = new LinkedHashMap<>(topologyNode);
             node.put("status", status);
             node.put("level", level);
             nodes.add(node);
-        }
 
-        // Edges: dependencies determine learning order
-        List<Map<String, String>> edges = new ArrayList<>();
-        for (SkillDependency d : skillDependencyRepository.findAll()) {
-            Map<String, String> e = new HashMap<>();
-            // Edge from prerequisite (child) to parent (skill requiring it)
-            e.put("source", d.getChildSkill().getSkillCode());
-            e.put("target", d.getParentSkill().getSkillCode());
-            edges.add(e);
-        }
-
-        // Optional compact list structure (for simple rendering)
-        List<Map<String, Object>> list = nodes.stream().map(n -> {
-            String code = (String) n.get("id");
-            List<String> next = edges.stream()
-                    .filter(e -> e.get("source").equals(code))
-                    .map(e -> e.get("target")).collect(Collectors.toList());
+            // Optional compact list structure (for simple rendering)
             Map<String, Object> item = new LinkedHashMap<>();
-            item.put("skill", n.get("label"));
+            item.put("skill", topologyNode.get("label"));
             item.put("skillCode", code);
-            item.put("status", n.get("status"));
-            item.put("action", recommendedAction((String) n.get("status")));
-            item.put("next", next);
-            return item;
-        }).collect(Collectors.toList());
+            item.put("status", status);
+            item.put("action", recommendedAction(status));
+            item.put("next", topology.next(code));
+            list.add(item);
+        }
 
         Map<String, Object> out = new LinkedHashMap<>();
         out.put("nodes", nodes);
-        out.put("edges", edges);
+        out.put("edges", topology.getEdges());
         out.put("list", list);
+        out.put("topologyEtag", topology.getEtag());
         return out;
     }
 
+    private Map<String, Double> assessedLevels(Long sessionId) {
+        Map<String, Double> levels = new HashMap<>();
+        for (Object[] row : skillAssessmentRepository.findSkillLevelsBySessionId(sessionId)) {
+            if (row[1] != null) {
+                levels.put((String) row[0], ((Number) row[1]).doubleValue());
+            }
+        }
+        return levels;
+    }
+
+    private static String statusOf(double level) {
+        return level < 0.4 ? "weak" : (level < 0.7 ? "moderate" : "strong");
+    }
+
     private String recommendedAction(String status) {
         return switch (status) {
             case "weak" -> "Start with foundation resources and guided tutorials.";
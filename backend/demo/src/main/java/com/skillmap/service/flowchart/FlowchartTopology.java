@@ -0,0 +1,201 @@
+package com.skillmap.service.flowchart;
+
+import com.skillmap.service.engine.SkillGraphService;
+import com.skillmap.service.engine.SkillGraphCore;
+import com.skillmap.service.engine.SkillGraphSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session-independent part of the flowchart for one skill graph version: nodes with a layered layout,
+ * edges and each skill's next skills. Built once per graph version and shared by all requests.
+ *
+ * <p>Layout follows the drawn edges, which run from a dependency's child to its parent: a skill's layer
+ * is the longest chain of edges leading into it (its height over its children), so skills without
+ * children are in layer 0 and every edge points to a higher layer. Within a layer, skills are ordered
+ * by the mean position of their children in earlier layers, which keeps edges short, then by ordinal.
+ */
+public final class FlowchartTopology {
+
+    private final long graphVersion;
+    private final String etag;
+    private final List<Map<String, Object>> nodes;
+    private final List<Map<String, String>> edges;
+    private final Map<String, List<String>> next;
+    private final Map<String, Object> body;
+
+    private FlowchartTopology(long graphVersion, String etag, List<Map<String, Object>> nodes,
+                              List<Map<String, String>> edges, Map<String, List<String>> next) {
+        this.graphVersion = graphVersion;
+        this.etag = etag;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.next = next;
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("graphVersion", graphVersion);
+        out.put("etag", etag);
+        out.put("nodes", nodes);
+        out.put("edges", edges);
+        this.body = Collections.unmodifiableMap(out);
+    }
+
+    static FlowchartTopology build(SkillGraphSnapshot snapshot) {
+        SkillGraphService.SkillOrdinals ordinals = snapshot.getOrdinals();
+        SkillGraphCore graph = snapshot.getCore();
+        int n = ordinals.size();
+
+        // Layered layout: layer by height over children, order within a layer by child barycenter
+        int[] layers = heights(snapshot, ordinals, graph);
+        int[] positions = new int[n];
+        double[] keys = new double[n];
+        Integer[] byLayer = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byLayer[i] = i;
+        }
+        Arrays.sort(byLayer, Comparator.comparingInt(i -> layers[i]));
+        int start = 0;
+        while (start < n) {
+            int layer = layers[byLayer[start]];
+            int end = start;
+            while (end < n && layers[byLayer[end]] == layer) {
+                int v = byLayer[end];
+                double sum = 0;
+                int count = 0;
+                for (int k = graph.outStart(v), outEnd = graph.outEnd(v); k < outEnd; k++) {
+                    int child = graph.child(k);
+                    if (layers[child] < layer) {
+                        sum += positions[child];
+                        count++;
+                    }
+                }
+                keys[v] = count > 0 ? sum / count : -1;
+                end++;
+            }
+            Arrays.sort(byLayer, start, end, Comparator.<Integer>comparingDouble(i -> keys[i]).thenComparingInt(i -> i));
+            for (int k = start; k < end; k++) {
+                positions[byLayer[k]] = k - start;
+            }
+            start = end;
+        }
+
+        List<Map<String, Object>> nodes = new ArrayList<>(n);
+        Map<String, List<String>> next = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            String code = ordinals.code(i);
+            SkillGraphSnapshot.SkillInfo skill = snapshot.getSkills().get(code);
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("id", code);
+            node.put("label", skill != null ? skill.displayName() : code);
+            node.put("layer", layers[i]);
+            node.put("order", positions[i]);
+            nodes.add(Collections.unmodifiableMap(node));
+            next.put(code, new ArrayList<>());
+        }
+
+        // Edge from prerequisite (child) to parent (skill requiring it), as stored in skill_dependencies
+        List<Map<String, String>> edges = new ArrayList<>(graph.edgeCount());
+        for (int v = 0; v < n; v++) {
+            for (int k = graph.outStart(v), outEnd = graph.outEnd(v); k < outEnd; k++) {
+                String source = ordinals.code(graph.child(k));
+                String target = ordinals.code(v);
+                Map<String, String> e = new LinkedHashMap<>();
+                e.put("source", source);
+                e.put("target", target);
+                edges.add(Collections.unmodifiableMap(e));
+                next.get(source).add(target);
+            }
+        }
+        next.replaceAll((code, targets) -> List.copyOf(targets));
+
+        return new FlowchartTopology(snapshot.getVersion(), etagOf(nodes, edges),
+            Collections.unmodifiableList(nodes), Collections.unmodifiableList(edges), Collections.unmodifiableMap(next));
+    }
+
+    /**
+     * Longest chain of drawn edges (child to parent) ending at each skill, children before parents over
+     * the reverse topological order. Skills on or below a cycle are not in the order and count only their
+     * ordered children.
+     */
+    private static int[] heights(SkillGraphSnapshot snapshot, SkillGraphService.SkillOrdinals ordinals,
+                                 SkillGraphCore graph) {
+        int n = ordinals.size();
+        int[] heights = new int[n];
+        boolean[] ordered = new boolean[n];
+        List<String> order = snapshot.getTopologicalOrder();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            int v = ordinals.byCode().get(order.get(i));
+            for (int k = graph.outStart(v), outEnd = graph.outEnd(v); k < outEnd; k++) {
+                heights[v] = Math.max(heights[v], heights[graph.child(k)] + 1);
+            }
+            ordered[v] = true;
+        }
+        for (int v = 0; v < n; v++) {
+            if (!ordered[v]) {
+                for (int k = graph.outStart(v), outEnd = graph.outEnd(v); k < outEnd; k++) {
+                    int child = graph.child(k);
+                    if (ordered[child]) {
+                        heights[v] = Math.max(heights[v], heights[child] + 1);
+                    }
+                }
+            }
+        }
+        return heights;
+    }
+
+    /**
+     * Content hash rather than the graph version, so the tag stays valid across restarts.
+     */
+    private static String etagOf(List<Map<String, Object>> nodes, List<Map<String, String>> edges) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(nodes.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(edges.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public long getGraphVersion() {
+        return graphVersion;
+    }
+
+    /**
+     * Quoted entity tag of the topology, for {@code ETag} / {@code If-None-Match}.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public List<Map<String, Object>> getNodes() {
+        return nodes;
+    }
+
+    public List<Map<String, String>> getEdges() {
+        return edges;
+    }
+
+    /**
+     * Skills each skill's edges lead to, by skill code.
+     */
+    public List<String> next(String skillCode) {
+        return next.getOrDefault(skillCode, List.of());
+    }
+
+    /**
+     * Response body of the topology endpoint; read-only.
+     */
+    public Map<String, Object> getBody() {
+        return body;
+    }
+}
@@ -1,8 +1,15 @@
 package com.skillmap.service.roadmap;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.skillmap.model.entity.*;
 import com.skillmap.repository.*;
+import com.skillmap.service.engine.LearningPathService;
 import com.skillmap.service.engine.SkillGraphService;
+import com.skillmap.service.engine.SkillGraphSnapshot.SkillInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -16,11 +23,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RoadmapGenerationService {
 
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final double REQUIRED_LEVEL = 0.8; // Assume 80% proficiency is required
+
     private final SkillRepository skillRepository;
     private final SkillDependencyRepository skillDependencyRepository;
     private final ResourceRepository resourceRepository;
     private final RoadmapRepository roadmapRepository;
     private final SkillGraphService skillGraphService;
+    private final LearningPathService learningPathService;
 
     public Roadmap generatePersonalizedRoadmap(AssessmentSession session, Map<String, Double> skillLevels) {
         log.info("Generating personalized roadmap for session: {}", session.getId());
@@ -79,31 +90,20 @@ public class RoadmapGenerationService {
         List<SkillGap> gaps = new ArrayList<>();
 
         // Get all skills for the target role category
-        List<Skill> allSkills = skillRepository.findAll();
-        List<Skill> relevantSkills;
-
-        if (targetRole != null && !targetRole.isEmpty()) {
-            relevantSkills = allSkills.stream()
-                .filter(skill -> skill.getCategory() != null &&
-                       skill.getCategory().name().toLowerCase().contains(targetRole.toLowerCase()))
-                .collect(Collectors.toList());
-        } else {
-            // If no target role or beginner user, consider all skills as relevant
-            relevantSkills = allSkills;
-        }
+        List<SkillInfo> allSkills = skillRepository.findAll().stream()
+            .map(SkillInfo::of)
+            .collect(Collectors.toList());
+        List<SkillInfo> relevantSkills;
 
-        for (Skill skill : relevantSkills) {
-            double currentLevel = skillLevels.getOrDefault(skill.getSkillCode(), 0.0);
-            double requiredLevel = 0.8; // Assume 80% proficiency is required
-
-            if (currentLevel < requiredLevel) {
-                SkillGap gap = new SkillGap();
-                gap.setSkill(skill);
-                gap.setCurrentLevel(currentLevel);
-                gap.setRequiredLevel(requiredLevel);
-                gap.setGapSize(requiredLevel - currentLevel);
-                gap.setPriority(calculatePriority(skill, currentLevel));
-                gaps.add(gap);
+        relevantSkills = allSkills.stream()
+            .filter(skill -> isRelevant(skill, targetRole))
+            .collect(Collectors.toList());
+
+        for (SkillInfo skill : relevantSkills) {
+            double currentLevel = skillLevels.getOrDefault(skill.skillCode(), 0.0);
+
+            if (currentLevel < REQUIRED_LEVEL) {
+                gaps.add(createSkillGap(skill, currentLevel));
             }
         }
 
@@ -113,14 +113,30 @@ public class RoadmapGenerationService {
         return gaps;
     }
 
-    private double calculatePriority(Skill skill, double currentLevel) {
+    private boolean isRelevant(SkillInfo skill, String targetRole) {
+        // If no target role or beginner user, consider all skills as relevant
+        return targetRole == null || targetRole.isEmpty() ||
+            (skill.category() != null && skill.category().name().toLowerCase().contains(targetRole.toLowerCase()));
+    }
+
+    private SkillGap createSkillGap(SkillInfo skill, double currentLevel) {
+        SkillGap gap = new SkillGap();
+        gap.setSkill(skill);
+        gap.setCurrentLevel(currentLevel);
+        gap.setRequiredLevel(REQUIRED_LEVEL);
+        gap.setGapSize(REQUIRED_LEVEL - currentLevel);
+        gap.setPriority(calculatePriority(skill, currentLevel));
+        return gap;
+    }
+
+    private double calculatePriority(SkillInfo skill, double currentLevel) {
         double priority = 0.0;
 
         // Base priority on importance weight
-        priority += skill.getImportanceWeight() * 0.4;
+        priority += skill.importanceWeight() * 0.4;
 
         // Higher priority for foundational skills
-        int skillLevel = skillGraphService.getSkillLevel(skill.getSkillCode());
+        int skillLevel = skillGraphService.getSkillLevel(skill.skillCode());
         priority += (1.0 / skillLevel) * 0.3;
 
         // Higher priority for larger gaps
@@ -132,9 +148,18 @@ public class RoadmapGenerationService {
     private List<LearningPhase> createLearningPhases(List<SkillGap> skillGaps, Map<String, Double> skillLevels) {
         List<LearningPhase> phases = new ArrayList<>();
 
+        // Order skills along the learning path to all gaps, prerequisites first, then by priority
+        LearningPathService.LearningPath path = learningPathService.findPath(skillGaps.stream()
+            .map(gap -> gap.getSkill().skillCode())
+            .collect(Collectors.toList()), skillLevels);
+        Map<String, Integer> pathOrder = new HashMap<>();
+        path.steps().forEach(step -> pathOrder.put(step.skillCode(), pathOrder.size()));
+        List<SkillGap> orderedGaps = new ArrayList<>(skillGaps);
+        orderedGaps.sort(Comparator.comparingInt(gap -> pathOrder.getOrDefault(gap.getSkill().skillCode(), Integer.MAX_VALUE)));
+
         // Group skills by difficulty level
-        Map<Integer, List<SkillGap>> skillsByDifficulty = skillGaps.stream()
-            .collect(Collectors.groupingBy(gap -> skillGraphService.getSkillLevel(gap.getSkill().getSkillCode())));
+        Map<Integer, List<SkillGap>> skillsByDifficulty = orderedGaps.stream()
+            .collect(Collectors.groupingBy(gap -> skillGraphService.getSkillLevel(gap.getSkill().skillCode())));
 
         // Create phases from foundational to advanced
         for (int level = 1; level <= skillsByDifficulty.keySet().stream().mapToInt(Integer::intValue).max().orElse(1); level++) {
@@ -149,6 +174,21 @@ public class RoadmapGenerationService {
     }
 
     private LearningPhase createPhaseForLevel(int level, List<SkillGap> skillGaps) {
+        LearningPhase phase = createPhaseOutline(level, skillGaps);
+
+        // Get resources for this phase
+        List<Resource> resources = getResourcesForSkills(skillGaps.stream()
+            .map(gap -> gap.getSkill())
+            .collect(Collectors.toList()));
+        phase.setResources(resources);
+
+        return phase;
+    }
+
+    /**
+     * Phase without resources: everything the stored milestones JSON holds.
+     */
+    private LearningPhase createPhaseOutline(int level, List<SkillGap> skillGaps) {
         LearningPhase phase = new LearningPhase();
         phase.setPhaseNumber(level);
         phase.setPhaseName(getPhaseName(level));
@@ -158,12 +198,6 @@ public class RoadmapGenerationService {
         int durationWeeks = calculatePhaseDuration(skillGaps);
         phase.setDurationWeeks(durationWeeks);
 
-        // Get resources for this phase
-        List<Resource> resources = getResourcesForSkills(skillGaps.stream()
-            .map(gap -> gap.getSkill())
-            .collect(Collectors.toList()));
-        phase.setResources(resources);
-
         // Set learning objectives
         phase.setObjectives(generateObjectives(skillGaps));
 
@@ -197,11 +231,11 @@ public class RoadmapGenerationService {
         return Math.max(adjustedDuration, 2); // Minimum 2 weeks
     }
 
-    private List<Resource> getResourcesForSkills(List<Skill> skills) {
+    private List<Resource> getResourcesForSkills(List<SkillInfo> skills) {
         List<Resource> allResources = new ArrayList<>();
 
-        for (Skill skill : skills) {
-            List<Resource> skillResources = resourceRepository.findBySkillId(skill.getId());
+        for (SkillInfo skill : skills) {
+            List<Resource> skillResources = resourceRepository.findBySkillId(skill.id());
             allResources.addAll(skillResources);
         }
 
@@ -216,7 +250,7 @@ public class RoadmapGenerationService {
 
         for (SkillGap gap : skillGaps) {
             String objective = String.format("Achieve %.1f proficiency in %s",
-                gap.getRequiredLevel(), gap.getSkill().getDisplayName());
+                gap.getRequiredLevel(), gap.getSkill().displayName());
             objectives.add(objective);
         }
 
@@ -224,36 +258,25 @@ public class RoadmapGenerationService {
     }
 
     private String convertPhasesToJson(List<LearningPhase> phases) {
-        // Simple JSON conversion - in real implementation, use Jackson ObjectMapper
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < phases.size(); i++) {
-            LearningPhase phase = phases.get(i);
-            json.append("{")
-                .append("\"phaseNumber\":").append(phase.getPhaseNumber()).append(",")
-                .append("\"phaseName\":\"").append(phase.getPhaseName()).append("\",")
-                .append("\"durationWeeks\":").append(phase.getDurationWeeks()).append(",")
-                .append("\"skills\":[");
-
-            List<Skill> skills = phase.getSkills();
-            for (int j = 0; j < skills.size(); j++) {
-                Skill skill = skills.get(j);
-                json.append("\"").append(skill.getDisplayName()).append("\"");
-                if (j < skills.size() - 1) json.append(",");
-            }
-
-            json.append("],\"objectives\":[");
-            List<String> objectives = phase.getObjectives();
-            for (int j = 0; j < objectives.size(); j++) {
-                json.append("\"").append(objectives.get(j)).append("\"");
-                if (j < objectives.size() - 1) json.append(",");
-            }
-
-            json.append("]}");
-            if (i < phases.size() - 1) json.append(",");
-        }
-        json.append("]");
+        ArrayNode json = MAPPER.createArrayNode();
+        phases.forEach(phase -> json.add(phaseToJson(phase)));
+        return writeJson(json);
+    }
 
-        return json.toString();
+    private ObjectNode phaseToJson(LearningPhase phase) {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("phaseNumber", phase.getPhaseNumber());
+        json.put("phaseName", phase.getPhaseName());
+        json.put("durationWeeks", phase.getDurationWeeks());
+        ArrayNode skills = json.putArray("skills");
+        ArrayNode skillCodes = json.putArray("skillCodes");
+        phase.getSkills().forEach(skill -> {
+            skills.add(skill.displayName());
+            skillCodes.add(skill.skillCode());
+        });
+        ArrayNode objectives = json.putArray("objectives");
+        phase.getObjectives().forEach(objectives::add);
+        return json;
     }
 
     private int calculateTotalDuration(List<LearningPhase> phases) {
@@ -265,20 +288,28 @@ public class RoadmapGenerationService {
     }
 
     private String generateGapAnalysisJson(List<SkillGap> skillGaps) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < skillGaps.size(); i++) {
-            SkillGap gap = skillGaps.get(i);
-            json.append("{")
-                .append("\"skill\":\"").append(gap.getSkill().getDisplayName()).append("\",")
-                .append("\"currentLevel\":").append(gap.getCurrentLevel()).append(",")
-                .append("\"requiredLevel\":").append(gap.getRequiredLevel()).append(",")
-                .append("\"gapSize\":").append(gap.getGapSize()).append(",")
-                .append("\"priority\":").append(gap.getPriority())
-                .append("}");
-            if (i < skillGaps.size() - 1) json.append(",");
+        ArrayNode json = MAPPER.createArrayNode();
+        skillGaps.forEach(gap -> json.add(gapToJson(gap)));
+        return writeJson(json);
+    }
+
+    private ObjectNode gapToJson(SkillGap gap) {
+        ObjectNode json = MAPPER.createObjectNode();
+        json.put("skill", gap.getSkill().displayName());
+        json.put("skillCode", gap.getSkill().skillCode());
+        json.put("currentLevel", gap.getCurrentLevel());
+        json.put("requiredLevel", gap.getRequiredLevel());
+        json.put("gapSize", gap.getGapSize());
+        json.put("priority", gap.getPriority());
+        return json;
+    }
+
+    private String writeJson(JsonNode json) {
+        try {
+            return MAPPER.writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode roadmap JSON", e);
         }
-        json.append("]");
-        return json.toString();
     }
 
     private String generateMotivationalMessage(int skillGapCount, Integer totalWeeks) {
@@ -291,17 +322,26 @@ public class RoadmapGenerationService {
         }
     }
 
+    /**
+     * Bring the roadmap up to date with changed skill levels. Levels are diffed against the stored gap
+     * analysis: only skills whose level changed are re-scored, and only the phases holding a skill that
+     * changed, entered or left the gaps are rebuilt; the rest of the stored JSON is kept. Skills missing
+     * from {@code updatedSkillLevels} keep their stored gap. Roadmaps stored before gaps carried skill
+     * codes are recomputed in full.
+     */
     public Roadmap updateRoadmapProgress(Roadmap roadmap, Map<String, Double> updatedSkillLevels) {
         log.info("Updating roadmap progress for roadmap: {}", roadmap.getId());
 
-        // Recalculate phases based on new skill levels
-        List<SkillGap> updatedGaps = identifySkillGaps(updatedSkillLevels, roadmap.getSession().getTargetRole());
-        List<LearningPhase> updatedPhases = createLearningPhases(updatedGaps, updatedSkillLevels);
+        if (!patchRoadmap(roadmap, updatedSkillLevels)) {
+            // Recalculate phases based on new skill levels
+            List<SkillGap> updatedGaps = identifySkillGaps(updatedSkillLevels, roadmap.getSession().getTargetRole());
+            List<LearningPhase> updatedPhases = createLearningPhases(updatedGaps, updatedSkillLevels);
 
-        // Update roadmap
-        roadmap.setGapAnalysis(generateGapAnalysisJson(updatedGaps));
-        roadmap.setMilestones(convertPhasesToJson(updatedPhases));
-        roadmap.setTotalEstimatedWeeks(calculateTotalDuration(updatedPhases));
+            // Update roadmap
+            roadmap.setGapAnalysis(generateGapAnalysisJson(updatedGaps));
+            roadmap.setMilestones(convertPhasesToJson(updatedPhases));
+            roadmap.setTotalEstimatedWeeks(calculateTotalDuration(updatedPhases));
+        }
 
         // Update current level
         double updatedOverallLevel = updatedSkillLevels.values().stream()
@@ -313,17 +353,149 @@ public class RoadmapGenerationService {
         return roadmapRepository.save(roadmap);
     }
 
+    /**
+     * Patch the stored gap analysis and milestones in place; false if they predate skill codes and
+     * cannot be patched.
+     */
+    private boolean patchRoadmap(Roadmap roadmap, Map<String, Double> updatedSkillLevels) {
+        JsonNode storedGaps;
+        JsonNode storedPhases;
+        try {
+            storedGaps = MAPPER.readTree(roadmap.getGapAnalysis() != null ? roadmap.getGapAnalysis() : "[]");
+            storedPhases = MAPPER.readTree(roadmap.getMilestones() != null ? roadmap.getMilestones() : "[]");
+        } catch (JsonProcessingException e) {
+            log.warn("Roadmap {} has unreadable JSON, recomputing it: {}", roadmap.getId(), e.getMessage());
+            return false;
+        }
+        if (!storedGaps.isArray() || !storedPhases.isArray()) {
+            return false;
+        }
+        Map<String, ObjectNode> gapsByCode = new LinkedHashMap<>();
+        for (JsonNode gap : storedGaps) {
+            if (!gap.hasNonNull("skillCode")) {
+                return false;
+            }
+            gapsByCode.put(gap.get("skillCode").asText(), (ObjectNode) gap);
+        }
+        Map<Integer, ObjectNode> phasesByNumber = new TreeMap<>();
+        Map<String, Integer> storedPhaseOf = new HashMap<>();
+        for (JsonNode phase : storedPhases) {
+            if (!phase.has("skillCodes")) {
+                return false;
+            }
+            phasesByNumber.put(phase.get("phaseNumber").asInt(), (ObjectNode) phase);
+            phase.get("skillCodes").forEach(code -> storedPhaseOf.put(code.asText(), phase.get("phaseNumber").asInt()));
+        }
+
+        // Diff: re-score skills whose level changed and note the phases they were and are in
+        Map<String, SkillInfo> skills = skillGraphService.current().getSkills();
+        String targetRole = null;
+        boolean targetRoleLoaded = false;
+        Set<Integer> affectedPhases = new TreeSet<>();
+        for (Map.Entry<String, Double> entry : updatedSkillLevels.entrySet()) {
+            String skillCode = entry.getKey();
+            Double level = entry.getValue();
+            SkillInfo skill = skills.get(skillCode);
+            if (level == null || skill == null) {
+                continue;
+            }
+            ObjectNode stored = gapsByCode.get(skillCode);
+            if (stored != null) {
+                if (stored.path("currentLevel").asDouble() == level) {
+                    continue;
+                }
+                if (level < REQUIRED_LEVEL) {
+                    gapsByCode.put(skillCode, gapToJson(createSkillGap(skill, level)));
+                } else {
+                    gapsByCode.remove(skillCode); // Crossed the required level
+                }
+            } else {
+                if (level >= REQUIRED_LEVEL) {
+                    continue;
+                }
+                if (!targetRoleLoaded) {
+                    targetRole = roadmap.getSession().getTargetRole();
+                    targetRoleLoaded = true;
+                }
+                if (!isRelevant(skill, targetRole)) {
+                    continue;
+                }
+                gapsByCode.put(skillCode, gapToJson(createSkillGap(skill, level))); // Fell below it
+            }
+            affectedPhases.add(skillGraphService.getSkillLevel(skillCode));
+            Integer storedPhase = storedPhaseOf.get(skillCode);
+            if (storedPhase != null) {
+                affectedPhases.add(storedPhase);
+            }
+        }
+        if (affectedPhases.isEmpty()) {
+            return true;
+        }
+
+        // Gap analysis: re-sorted by priority (highest first), unchanged entries kept as stored
+        List<ObjectNode> gaps = new ArrayList<>(gapsByCode.values());
+        gaps.sort((a, b) -> Double.compare(b.path("priority").asDouble(), a.path("priority").asDouble()));
+        ArrayNode gapJson = MAPPER.createArrayNode();
+        gaps.forEach(gapJson::add);
+
+        // Affected phases: stored skill order first, newly added skills after in priority order
+        for (int phaseNumber : affectedPhases) {
+            List<String> order = new ArrayList<>();
+            ObjectNode storedPhase = phasesByNumber.get(phaseNumber);
+            if (storedPhase != null) {
+                storedPhase.get("skillCodes").forEach(code -> order.add(code.asText()));
+            }
+            List<SkillGap> phaseGaps = new ArrayList<>();
+            for (ObjectNode gap : gaps) {
+                String skillCode = gap.get("skillCode").asText();
+                SkillInfo skill = skills.get(skillCode);
+                if (skill != null && skillGraphService.getSkillLevel(skillCode) == phaseNumber) {
+                    phaseGaps.add(gapFromJson(skill, gap));
+                }
+            }
+            phaseGaps.sort(Comparator.comparingInt(gap -> {
+                int index = order.indexOf(gap.getSkill().skillCode());
+                return index >= 0 ? index : Integer.MAX_VALUE;
+            }));
+            if (phaseGaps.isEmpty()) {
+                phasesByNumber.remove(phaseNumber);
+            } else {
+                phasesByNumber.put(phaseNumber, phaseToJson(createPhaseOutline(phaseNumber, phaseGaps)));
+            }
+        }
+        ArrayNode phaseJson = MAPPER.createArrayNode();
+        phasesByNumber.values().forEach(phaseJson::add);
+
+        roadmap.setGapAnalysis(writeJson(gapJson));
+        roadmap.setMilestones(writeJson(phaseJson));
+        roadmap.setTotalEstimatedWeeks(phasesByNumber.values().stream()
+            .mapToInt(phase -> phase.path("durationWeeks").asInt())
+            .sum());
+        log.debug("Patched roadmap {}: {} phases rebuilt", roadmap.getId(), affectedPhases.size());
+        return true;
+    }
+
+    private SkillGap gapFromJson(SkillInfo skill, JsonNode json) {
+        SkillGap gap = new SkillGap();
+        gap.setSkill(skill);
+        gap.setCurrentLevel(json.path("currentLevel").asDouble());
+        gap.setRequiredLevel(json.path("requiredLevel").asDouble(REQUIRED_LEVEL));
+        gap.setGapSize(json.path("gapSize").asDouble());
+        gap.setPriority(json.path("priority").asDouble());
+        return gap;
+    }
+
     // Inner classes for roadmap structure
     private static class SkillGap {
-        private Skill skill;
+        private SkillInfo skill;
         private double currentLevel;
         private double requiredLevel;
         private double gapSize;
         private double priority;
 
         // Getters and setters
-        public Skill getSkill() { return skill; }
-        public void setSkill(Skill skill) { this.skill = skill; }
+        public SkillInfo getSkill() { return skill; }
+        public void setSkill(SkillInfo skill) { this.skill = skill; }
         public double getCurrentLevel() { return currentLevel; }
         public void setCurrentLevel(double currentLevel) { this.currentLevel = currentLevel; }
         public double getRequiredLevel() { return requiredLevel; }
@@ -337,7 +509,7 @@ public class RoadmapGenerationService {
     private static class LearningPhase {
         private int phaseNumber;
         private String phaseName;
-        private List<Skill> skills;
+        private List<SkillInfo> skills;
         private int durationWeeks;
         private List<Resource> resources;
         private List<String> objectives;
@@ -347,8 +519,8 @@ public class RoadmapGenerationService {
         public void setPhaseNumber(int phaseNumber) { this.phaseNumber = phaseNumber; }
         public String getPhaseName() { return phaseName; }
         public void setPhaseName(String phaseName) { this.phaseName = phaseName; }
-        public List<Skill> getSkills() { return skills; }
-        public void setSkills(List<Skill> skills) { this.skills = skills; }
+        public List<SkillInfo> getSkills() { return skills; }
+        public void setSkills(List<SkillInfo> skills) { this.skills = skills; }
         public int getDurationWeeks() { return durationWeeks; }
         public void setDurationWeeks(int durationWeeks) { this.durationWeeks = durationWeeks; }
         public List<Resource> getResources() { return resources; }
@@ -0,0 +1,69 @@
+package com.skillmap.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SessionSerialExecutorTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final List<Long> failedSessions = new CopyOnWriteArrayList<>();
+    private final SessionSerialExecutor executor = new SessionSerialExecutor(pool, failedSessions::add);
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void chainedTaskRunsWithItsOwnSubmitterContext() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> seen = new CopyOnWriteArrayList<>();
+
+        MDC.put("request", "first");
+        executor.submit(1L, () -> {
+            await(release);
+            seen.add(MDC.get("request"));
+        });
+        MDC.put("request", "second");
+        CompletableFuture<Void> second = executor.submit(1L, () -> seen.add(MDC.get("request")));
+        MDC.clear();
+
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("first", "second"), seen);
+    }
+
+    @Test
+    void failingTaskIsReportedAndDoesNotStopTheSession() throws Exception {
+        List<String> seen = new CopyOnWriteArrayList<>();
+
+        executor.submit(7L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.submit(7L, () -> seen.add("after")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(7L), failedSessions);
+        assertEquals(List.of("after"), seen);
+        assertEquals(0, executor.activeSessions());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
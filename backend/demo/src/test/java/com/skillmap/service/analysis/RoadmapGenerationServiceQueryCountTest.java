@@ -0,0 +1,135 @@
+package com.skillmap.service.analysis;
+
+import com.skillmap.model.entity.AssessmentSession;
+import com.skillmap.model.entity.Resource;
+import com.skillmap.model.entity.ResumeData;
+import com.skillmap.model.entity.Skill;
+import com.skillmap.model.entity.SkillAssessment;
+import com.skillmap.model.entity.SkillDependency;
+import com.skillmap.service.OpenAIService;
+import com.skillmap.service.engine.LearningPathService;
+import com.skillmap.service.engine.SkillGraphService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+
+/**
+ * Roadmap assembly runs a fixed number of queries however many gaps, dependencies and resources the
+ * session has: skills, levels, resume, dependencies and resources.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@Import(RoadmapGenerationService.class)
+class RoadmapGenerationServiceQueryCountTest {
+
+    private static final int MAX_QUERIES = 5;
+    private static final int GAPS = 5;
+
+    @Autowired
+    private RoadmapGenerationService roadmapGenerationService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private OpenAIService openAIService;
+
+    @MockitoBean
+    private LearningPathService learningPathService;
+
+    // Checked by the dependency entity listener
+    @MockitoBean
+    private SkillGraphService skillGraphService;
+
+    private AssessmentSession session;
+
+    @BeforeEach
+    void setUp() {
+        when(learningPathService.findPath(anyCollection(), anyMap()))
+            .thenReturn(new LearningPathService.LearningPath(1, List.of(), List.of(), 0.0, Map.of(), List.of()));
+
+        session = new AssessmentSession();
+        session.setSessionToken("query-count");
+        session.setStatus(AssessmentSession.Status.in_progress);
+        entityManager.persist(session);
+
+        // Five weak skills, each with two prerequisites and two resources on every skill
+        List<Skill> skills = new ArrayList<>();
+        for (int i = 0; i < GAPS * 3; i++) {
+            Skill skill = new Skill();
+            skill.setSkillCode("skill-" + i);
+            skill.setDisplayName("Skill " + i);
+            skill.setCategory(Skill.Category.Programming);
+            entityManager.persist(skill);
+            skills.add(skill);
+            for (int r = 0; r < 2; r++) {
+                Resource resource = new Resource();
+                resource.setSkill(skill);
+                resource.setTargetLevel(3);
+                resource.setResourceType(Resource.ResourceType.course);
+                resource.setTitle("Resource " + r + " for skill " + i);
+                entityManager.persist(resource);
+            }
+        }
+        for (int i = 0; i < GAPS; i++) {
+            SkillAssessment assessment = new SkillAssessment();
+            assessment.setSession(session);
+            assessment.setSkill(skills.get(i));
+            assessment.setAssessedLevel(0.1);
+            assessment.setConfidenceScore(0.8);
+            entityManager.persist(assessment);
+            for (int d = 1; d <= 2; d++) {
+                SkillDependency dependency = new SkillDependency();
+                dependency.setParentSkill(skills.get(i));
+                dependency.setChildSkill(skills.get(GAPS * d + i));
+                dependency.setDependencyType(SkillDependency.DependencyType.prerequisite);
+                entityManager.persist(dependency);
+            }
+        }
+        ResumeData resume = new ResumeData();
+        resume.setSession(session);
+        resume.setExtractedSkills("[\"unrelated\"]");
+        entityManager.persist(resume);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void roadmapAssemblyRunsAFixedNumberOfQueries() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Map<String, Object> roadmap = roadmapGenerationService.generatePersonalizedRoadmap(session);
+
+        List<Map<String, Object>> phases = (List<Map<String, Object>>) roadmap.get("phases");
+        assertThat(phases).hasSize(GAPS);
+        for (Map<String, Object> phase : phases) {
+            List<Map<String, Object>> milestones = (List<Map<String, Object>>) phase.get("milestones");
+            assertThat(milestones).hasSize(3);
+            milestones.forEach(milestone -> assertThat((List<?>) milestone.get("resources")).hasSize(2));
+        }
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_QUERIES);
+    }
+}
@@ -0,0 +1,142 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.Question;
+import com.skillmap.model.entity.Skill;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IRT selection on a synthetic item bank and simulated candidates, with a fixed seed so the outcome is
+ * reproducible. Runs the real {@link IrtSelectionService} and checks that sessions stop well before the
+ * question cap, and that the standard errors it reports, overall and per skill, match the actual
+ * estimation error. Heuristic selection depends on stored beliefs and is not simulated here.
+ */
+@Slf4j
+class CatSimulatorTest {
+
+    private static final int SKILLS = 8;
+    private static final int ITEMS_PER_SKILL = 25;
+    private static final int MAX_QUESTIONS = 15;
+    private static final String OPTIONS = "[\"A\",\"B\",\"C\",\"D\"]";
+    private static final int SESSIONS = 500;
+    private static final double SE_TARGET = 0.5;
+    // Reported standard errors may understate the actual error by at most this factor
+    private static final double CALIBRATION_TOLERANCE = 1.2;
+
+    @Test
+    void irtStopsEarlyWithCalibratedStandardErrors() {
+        Random random = new Random(42L);
+        List<CatalogQuestion> bank = buildBank(random);
+        IrtSelectionService irt = new IrtSelectionService("irt", SE_TARGET, 5);
+
+        Result overall = new Result();
+        Result perSkill = new Result();
+        for (int s = 0; s < SESSIONS; s++) {
+            double theta = random.nextGaussian();
+            double[] skillTheta = new double[SKILLS];
+            for (int k = 0; k < SKILLS; k++) {
+                skillTheta[k] = theta + 0.5 * random.nextGaussian();
+            }
+            AssessmentSessionState state = runIrt(bank, irt, skillTheta, random);
+            IrtModel.AbilityEstimate estimate = irt.overallAbility(state);
+            overall.add(state.getAnsweredCount(), estimate.theta() - theta, estimate.standardError());
+            irt.skillAbilities(state).forEach((skillCode, skill) -> perSkill.add(state.getAnsweredCount(),
+                skill.theta() - skillTheta[Integer.parseInt(skillCode.substring(6))], skill.standardError()));
+        }
+
+        log.info("Item bank: {} items over {} skills, {} simulated sessions", bank.size(), SKILLS, SESSIONS);
+        log.info(overall.summary(String.format("irt overall (SE <= %.2f)", SE_TARGET)));
+        log.info(perSkill.summary("irt per skill"));
+
+        assertTrue(overall.meanLength() < MAX_QUESTIONS - 2,
+            "IRT sessions should usually reach the standard-error target before the cap");
+        assertTrue(overall.rmse() <= CALIBRATION_TOLERANCE * overall.meanStandardError(),
+            "Overall standard errors should match the actual estimation error");
+        assertTrue(perSkill.rmse() <= CALIBRATION_TOLERANCE * perSkill.meanStandardError(),
+            "Per-skill standard errors should match the actual estimation error");
+    }
+
+    private static List<CatalogQuestion> buildBank(Random random) {
+        List<CatalogQuestion> bank = new ArrayList<>();
+        long id = 1;
+        for (int k = 0; k < SKILLS; k++) {
+            Skill skill = new Skill();
+            skill.setSkillCode("skill-" + k);
+            for (int i = 0; i < ITEMS_PER_SKILL; i++) {
+                Question question = new Question();
+                question.setId(id++);
+                question.setSkill(skill);
+                boolean mcq = random.nextDouble() < 0.6;
+                question.setQuestionType(mcq ? "mcq" : "text");
+                question.setOptions(mcq ? OPTIONS : null);
+                // Authored difficulty on the seed-data scale, 1.0-4.0
+                question.setDifficultyLevel(Math.round((1.0 + 3.0 * random.nextDouble()) * 10) / 10.0);
+                bank.add(CatalogQuestion.from(question));
+            }
+        }
+        return bank;
+    }
+
+    private static AssessmentSessionState runIrt(List<CatalogQuestion> bank, IrtSelectionService irt,
+                                                 double[] skillTheta, Random random) {
+        AssessmentSessionState state = new AssessmentSessionState(0L);
+        List<CatalogQuestion> remaining = new ArrayList<>(bank);
+        while (state.getAnsweredCount() < MAX_QUESTIONS && !irt.isPrecise(state)) {
+            CatalogQuestion next = irt.selectNext(remaining, state);
+            if (next == null) {
+                break;
+            }
+            remaining.remove(next);
+            answer(state, next, skillTheta, random);
+        }
+        return state;
+    }
+
+    private static void answer(AssessmentSessionState state, CatalogQuestion question, double[] skillTheta,
+                               Random random) {
+        IrtModel.ItemParameters item = question.item();
+        String skillCode = question.skillCode();
+        double p = IrtModel.probability(item, skillTheta[Integer.parseInt(skillCode.substring(6))]);
+        double score = "mcq".equals(question.questionType())
+            ? (random.nextDouble() < p ? 1.0 : 0.0)
+            : Math.max(0.0, Math.min(1.0, p + 0.15 * random.nextGaussian()));
+        state.recordAnswer(question.id(), question.questionType(), null, 60, skillCode, score, item);
+    }
+
+    private static final class Result {
+        private int count;
+        private long totalLength;
+        private double squaredError;
+        private double totalStandardError;
+
+        void add(int length, double error, double standardError) {
+            count++;
+            totalLength += length;
+            squaredError += error * error;
+            totalStandardError += standardError;
+        }
+
+        double meanLength() {
+            return (double) totalLength / count;
+        }
+
+        double rmse() {
+            return Math.sqrt(squaredError / count);
+        }
+
+        double meanStandardError() {
+            return totalStandardError / count;
+        }
+
+        String summary(String label) {
+            return String.format("%-28s avg length %5.2f   RMSE %.3f   mean SE %.3f", label,
+                meanLength(), rmse(), meanStandardError());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.Skill;
+import com.skillmap.model.entity.SkillDependency;
+import com.skillmap.repository.SkillDependencyRepository;
+import com.skillmap.repository.SkillRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JMH measurement of {@link LearningPathService#findPath(java.util.Collection, Map)} per query, on a
+ * synthetic layered skill graph like {@link SkillGraphBenchmark}'s: with the search space cached for the
+ * target set, as for repeated roadmap requests, and with it rebuilt on every query. The setup checks that
+ * both give the same paths, that every unmet prerequisite of a step comes before it and that every unmet
+ * target is on the path. Not run by surefire; run {@link #main} from the IDE, or
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main LearningPathBenchmark}
+ * after {@code mvn test-compile}.
+ *
+ * <p>The skill count is lower than in {@link SkillGraphBenchmark}: the snapshot keeps every skill's
+ * prerequisite and dependent closures, which grow with the square of the skill count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LearningPathBenchmark {
+
+    private static final int WINDOW = 200;
+
+    @Param("5000")
+    private int skills;
+
+    @Param("5")
+    private int targets;
+
+    @Param("64")
+    private int queries;
+
+    @Param("42")
+    private long seed;
+
+    private List<List<String>> targetSets;
+    private List<Map<String, Double>> levelSets;
+    private SkillGraphSnapshot graph;
+    private LearningPathService cached;
+    private LearningPathService uncached;
+    private int next;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LearningPathBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(seed);
+        List<Skill> skillList = new ArrayList<>(skills);
+        for (int v = 0; v < skills; v++) {
+            Skill skill = new Skill();
+            skill.setId((long) v);
+            skill.setSkillCode("skill-" + v);
+            skill.setDisplayName("Skill " + v);
+            skill.setCategory(Skill.Category.Programming);
+            skillList.add(skill);
+        }
+        List<SkillDependency> dependencies = new ArrayList<>();
+        for (int v = 1; v < skills; v++) {
+            int count = 1 + random.nextInt(3);
+            for (int p = 0; p < count; p++) {
+                SkillDependency dependency = new SkillDependency();
+                dependency.setParentSkill(skillList.get(Math.max(0, v - 1 - random.nextInt(WINDOW))));
+                dependency.setChildSkill(skillList.get(v));
+                dependency.setWeight(random.nextDouble());
+                dependencies.add(dependency);
+            }
+        }
+
+        SkillRepository skillRepository = mock(SkillRepository.class);
+        SkillDependencyRepository dependencyRepository = mock(SkillDependencyRepository.class);
+        when(skillRepository.findAll()).thenReturn(skillList);
+        when(dependencyRepository.findAllWithSkills()).thenReturn(dependencies);
+        SkillGraphService graphService = new SkillGraphService(skillRepository, dependencyRepository,
+            mock(SessionStateService.class));
+        graph = graphService.buildSkillGraph();
+        cached = service(graphService, 512);
+        uncached = service(graphService, 0);
+
+        targetSets = new ArrayList<>(queries);
+        levelSets = new ArrayList<>(queries);
+        for (int q = 0; q < queries; q++) {
+            List<String> targetSet = new ArrayList<>(targets);
+            for (int t = 0; t < targets; t++) {
+                targetSet.add("skill-" + random.nextInt(skills));
+            }
+            Map<String, Double> levels = new HashMap<>();
+            for (int v = 0; v < skills; v++) {
+                levels.put("skill-" + v, random.nextDouble());
+            }
+            targetSets.add(targetSet);
+            levelSets.add(levels);
+        }
+        validate();
+    }
+
+    @Benchmark
+    public LearningPathService.LearningPath findPathCached() {
+        int q = next++ % queries;
+        return cached.findPath(targetSets.get(q), levelSets.get(q));
+    }
+
+    @Benchmark
+    public LearningPathService.LearningPath findPathUncached() {
+        int q = next++ % queries;
+        return uncached.findPath(targetSets.get(q), levelSets.get(q));
+    }
+
+    private static LearningPathService service(SkillGraphService graphService, int cacheSize) {
+        LearningPathService service = new LearningPathService(graphService, mock(SkillInferenceEngine.class));
+        ReflectionTestUtils.setField(service, "masteryLevel", 0.8);
+        ReflectionTestUtils.setField(service, "cacheSize", cacheSize);
+        return service;
+    }
+
+    private void validate() {
+        for (int q = 0; q < queries; q++) {
+            LearningPathService.LearningPath path = cached.findPath(targetSets.get(q), levelSets.get(q));
+            if (!path.equals(uncached.findPath(targetSets.get(q), levelSets.get(q)))) {
+                throw new IllegalStateException("Cached and rebuilt search spaces differ for " + targetSets.get(q));
+            }
+            Set<String> learned = new HashSet<>();
+            for (LearningPathService.Step step : path.steps()) {
+                int v = graph.getOrdinals().ordinal(step.skillCode());
+                for (int k = graph.getCore().inStart(v); k < graph.getCore().inEnd(v); k++) {
+                    String prerequisite = graph.getOrdinals().code(graph.getCore().parent(k));
+                    if (levelSets.get(q).get(prerequisite) < 0.8 && !learned.contains(prerequisite)) {
+                        throw new IllegalStateException("Step before its prerequisite " + prerequisite + ": "
+                            + step.skillCode());
+                    }
+                }
+                learned.add(step.skillCode());
+            }
+            for (String target : targetSets.get(q)) {
+                if (levelSets.get(q).get(target) < 0.8 && !learned.contains(target)) {
+                    throw new IllegalStateException("Unmet target missing from the path: " + target);
+                }
+            }
+        }
+    }
+}
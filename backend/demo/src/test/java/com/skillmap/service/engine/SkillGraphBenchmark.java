@@ -0,0 +1,230 @@
+package com.skillmap.service.engine;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.traverse.TopologicalOrderIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link SkillGraphCore} with the JGraphT graph it replaced, on a synthetic skill graph:
+ * build, prerequisite and dependent closures of sampled skills, topological order and cycle check. The
+ * setup checks that both give the same answers. Not run by surefire; run {@link #main} from the IDE, or
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main SkillGraphBenchmark}
+ * after {@code mvn test-compile}.
+ *
+ * <p>The graph is layered like the real one: every skill but the first has one to three prerequisites
+ * among the {@value #WINDOW} skills before it, so chains are long and closures large. JGraphT queries
+ * walk {@code incomingEdgesOf} / {@code outgoingEdgesOf} with a hash set, as the service used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkillGraphBenchmark {
+
+    private static final int WINDOW = 200;
+
+    @Param("50000")
+    private int skills;
+
+    @Param("200")
+    private int queries;
+
+    @Param("42")
+    private long seed;
+
+    private String[] codes;
+    private int[] parents;
+    private int[] children;
+    private float[] weights;
+    private int edges;
+    private int[] sample;
+    private Graph<String, DefaultEdge> graph;
+    private SkillGraphCore core;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SkillGraphBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(seed);
+        codes = new String[skills];
+        for (int v = 0; v < skills; v++) {
+            codes[v] = "skill-" + v;
+        }
+        parents = new int[skills * 3];
+        children = new int[skills * 3];
+        weights = new float[skills * 3];
+        edges = 0;
+        for (int v = 1; v < skills; v++) {
+            int count = 1 + random.nextInt(3);
+            for (int p = 0; p < count; p++) {
+                parents[edges] = Math.max(0, v - 1 - random.nextInt(WINDOW));
+                children[edges] = v;
+                weights[edges++] = (float) random.nextDouble();
+            }
+        }
+        sample = new int[queries];
+        for (int q = 0; q < queries; q++) {
+            sample[q] = random.nextInt(skills);
+        }
+        graph = buildJgrapht();
+        core = buildCore();
+        validate();
+    }
+
+    @Benchmark
+    public Graph<String, DefaultEdge> buildJgrapht() {
+        Graph<String, DefaultEdge> built = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String code : codes) {
+            built.addVertex(code);
+        }
+        for (int e = 0; e < edges; e++) {
+            built.addEdge(codes[parents[e]], codes[children[e]]);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public SkillGraphCore buildCore() {
+        return SkillGraphCore.of(skills, parents, children, weights, edges);
+    }
+
+    @Benchmark
+    public void prerequisitesJgrapht(Blackhole blackhole) {
+        for (int v : sample) {
+            blackhole.consume(walk(codes[v], true));
+        }
+    }
+
+    @Benchmark
+    public void prerequisitesCore(Blackhole blackhole) {
+        for (int v : sample) {
+            blackhole.consume(core.ancestors(v));
+        }
+    }
+
+    @Benchmark
+    public void dependentsJgrapht(Blackhole blackhole) {
+        for (int v : sample) {
+            blackhole.consume(walk(codes[v], false));
+        }
+    }
+
+    @Benchmark
+    public void dependentsCore(Blackhole blackhole) {
+        for (int v : sample) {
+            blackhole.consume(core.descendants(v));
+        }
+    }
+
+    @Benchmark
+    public List<String> topologicalOrderJgrapht() {
+        return jgraphtOrder();
+    }
+
+    @Benchmark
+    public int[] topologicalOrderCore() {
+        return core.topologicalOrder();
+    }
+
+    @Benchmark
+    public boolean cycleCheckJgrapht() {
+        return jgraphtHasCycle();
+    }
+
+    @Benchmark
+    public boolean cycleCheckCore() {
+        return core.hasCycle();
+    }
+
+    private void validate() {
+        for (int v : sample) {
+            if (!walk(codes[v], true).equals(toCodes(core.ancestors(v)))
+                || !walk(codes[v], false).equals(toCodes(core.descendants(v)))) {
+                throw new IllegalStateException("Closures differ for " + codes[v]);
+            }
+        }
+        // Orders may differ; check that the CSR one is complete and respects every edge
+        int[] order = core.topologicalOrder();
+        if (order.length != codes.length || jgraphtHasCycle()) {
+            throw new IllegalStateException("Topological orders disagree on acyclicity");
+        }
+        int[] position = new int[codes.length];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+        for (int e = 0; e < edges; e++) {
+            if (position[parents[e]] >= position[children[e]]) {
+                throw new IllegalStateException("Edge out of order: " + parents[e] + " -> " + children[e]);
+            }
+        }
+    }
+
+    private Set<String> walk(String start, boolean upwards) {
+        Set<String> seen = new HashSet<>();
+        ArrayDeque<String> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            String code = stack.pop();
+            for (DefaultEdge edge : upwards ? graph.incomingEdgesOf(code) : graph.outgoingEdgesOf(code)) {
+                String next = upwards ? graph.getEdgeSource(edge) : graph.getEdgeTarget(edge);
+                if (seen.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private Set<String> toCodes(BitSet ordinals) {
+        Set<String> result = new HashSet<>();
+        for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            result.add(codes[i]);
+        }
+        return result;
+    }
+
+    private List<String> jgraphtOrder() {
+        List<String> order = new ArrayList<>(graph.vertexSet().size());
+        new TopologicalOrderIterator<>(graph).forEachRemaining(order::add);
+        return order;
+    }
+
+    private boolean jgraphtHasCycle() {
+        try {
+            jgraphtOrder();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
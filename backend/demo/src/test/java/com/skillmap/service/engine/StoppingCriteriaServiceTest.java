@@ -0,0 +1,76 @@
+package com.skillmap.service.engine;
+
+import com.skillmap.model.entity.AssessmentSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Heuristic-mode stopping: the SPRT criterion ends a clear-cut session at the minimum of 10 answers,
+ * well before the 15 question cap, and keeps an ambiguous one going.
+ */
+class StoppingCriteriaServiceTest {
+
+    private final SessionStateService sessionStateService = mock(SessionStateService.class);
+    private final SkillInferenceEngine skillInferenceEngine = mock(SkillInferenceEngine.class);
+    private final StoppingCriteriaService service = new StoppingCriteriaService(sessionStateService,
+        new IrtSelectionService("heuristic", 0.5, 5), skillInferenceEngine,
+        true, 0.4, 0.7, 0.05, 0.1, 2, 0.8);
+
+    private final AssessmentSession session = new AssessmentSession();
+    private final AssessmentSessionState state = new AssessmentSessionState(1L);
+    private long questionId;
+
+    @BeforeEach
+    void setUp() {
+        session.setId(1L);
+        when(sessionStateService.get(any(AssessmentSession.class))).thenReturn(state);
+        when(skillInferenceEngine.getSkillBeliefs(any(AssessmentSession.class))).thenReturn(Map.of());
+    }
+
+    @Test
+    void stopsAtTheMinimumWhenEveryTestedSkillIsDecided() {
+        answer("java", 1.0, 6);
+        answer("sql", 0.0, 3);
+        assertFalse(service.evaluate(session).shouldStop(), "nine answers are below the minimum");
+
+        answer("sql", 0.0, 1);
+        StoppingCriteriaService.StoppingDecision decision = service.evaluate(session);
+
+        assertTrue(decision.shouldStop());
+        assertEquals(StoppingCriteriaService.AssessmentStopReason.SUFFICIENT_CONFIDENCE, decision.reason());
+        assertEquals(Map.of("java", SequentialProbabilityRatioTest.Outcome.MASTERED,
+            "sql", SequentialProbabilityRatioTest.Outcome.NOT_MASTERED), decision.status().get("skillDecisions"));
+    }
+
+    @Test
+    void continuesWhileAnswersAreMixed() {
+        for (int i = 0; i < 5; i++) {
+            answer("java", i % 2, 1);
+            answer("sql", (i + 1) % 2, 1);
+        }
+
+        assertFalse(service.evaluate(session).shouldStop());
+    }
+
+    @Test
+    void oneDecidedSkillIsNotEnough() {
+        answer("java", 1.0, 10);
+
+        assertFalse(service.evaluate(session).shouldStop());
+    }
+
+    private void answer(String skillCode, double score, int count) {
+        for (int i = 0; i < count; i++) {
+            state.recordAnswer(++questionId, "mcq", skillCode, 30, skillCode, score, null);
+        }
+    }
+}